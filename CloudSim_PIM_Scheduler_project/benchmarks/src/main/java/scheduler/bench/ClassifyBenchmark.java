@@ -0,0 +1,64 @@
+package scheduler.bench;
+
+import java.util.concurrent.TimeUnit;
+
+import org.cloudbus.cloudsim.Log;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import pimsim.ExecutionType;
+import scheduler.PIMScheduler;
+
+/**
+ * Latency of classifying one job with classifyJob, and of classifying the whole workload with
+ * classifyJobs. Divide the batch score by the number of cloudlets for the per-job cost.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ClassifyBenchmark {
+
+    @Param({"1000", "10000", "100000", "1000000"})
+    public int cloudlets;
+
+    private Workload workload;
+    private PIMScheduler scheduler;
+    private byte[] decisions;
+    private double[] predictions;
+    private int next;
+
+    @Setup
+    public void setup() {
+        Log.disable();
+        workload = Workload.generate(cloudlets);
+        scheduler = new PIMScheduler();
+        decisions = new byte[cloudlets];
+        predictions = new double[cloudlets];
+    }
+
+    @Benchmark
+    public ExecutionType classifyJob() {
+        int i = next;
+        next = i + 1 == cloudlets ? 0 : i + 1;
+        return scheduler.classifyJob(workload.ids[i], workload.ram[i], workload.length[i], workload.deadline[i]);
+    }
+
+    @Benchmark
+    public byte[] classifyJobs() {
+        scheduler.classifyJobs(workload.ids, workload.ram, workload.length, workload.deadline,
+                decisions, predictions);
+        return decisions;
+    }
+}
@@ -0,0 +1,95 @@
+package scheduler.bench;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.cloudbus.cloudsim.Cloudlet;
+import org.cloudbus.cloudsim.CloudletSchedulerSpaceShared;
+import org.cloudbus.cloudsim.Log;
+import org.cloudbus.cloudsim.UtilizationModel;
+import org.cloudbus.cloudsim.UtilizationModelFull;
+import org.cloudbus.cloudsim.Vm;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import pimsim.ExecutionType;
+import pimsim.TypedVm;
+import scheduler.PIMScheduler;
+
+/**
+ * Latency of picking a VM for one classified job, with half of the VMs in each pool. The release
+ * variant also returns the job, keeping VM loads steady as they would be in a long run.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SelectVmBenchmark {
+
+    private static final int JOBS = 100000;
+
+    @Param({"100", "1000", "10000"})
+    public int vms;
+
+    private PIMScheduler scheduler;
+    private Cloudlet[] cloudlets;
+    private ExecutionType[] decisions;
+    private int next;
+
+    @Setup
+    public void setup() {
+        Log.disable();
+        scheduler = new PIMScheduler();
+        Random rand = new Random(42);
+        for (int id = 0; id < vms; id++) {
+            // MIPS in the ranges CloudSimExample1 uses for each VM type
+            ExecutionType type = id % 2 == 0 ? ExecutionType.CPU : ExecutionType.PIM;
+            double mips = type == ExecutionType.CPU ? 8000 + rand.nextInt(2001) : 7000 + rand.nextInt(1001);
+            Vm vm = new TypedVm(id, 0, mips, 1, 2048, 1000, 10000, "Xen",
+                    new CloudletSchedulerSpaceShared(), type);
+            scheduler.registerVm(vm);
+        }
+
+        Workload workload = Workload.generate(JOBS);
+        byte[] codes = new byte[JOBS];
+        scheduler.classifyJobs(workload.ids, workload.ram, workload.length, workload.deadline,
+                codes, new double[JOBS]);
+
+        UtilizationModel utilization = new UtilizationModelFull();
+        cloudlets = new Cloudlet[JOBS];
+        decisions = new ExecutionType[JOBS];
+        for (int i = 0; i < JOBS; i++) {
+            cloudlets[i] = new Cloudlet(i, workload.length[i], 1, 300, 300, utilization, utilization, utilization);
+            decisions[i] = ExecutionType.fromCode(codes[i]);
+        }
+    }
+
+    @Benchmark
+    public Vm selectVM() {
+        int i = next;
+        next = i + 1 == JOBS ? 0 : i + 1;
+        return scheduler.selectVM(i, decisions[i], cloudlets[i].getCloudletLength());
+    }
+
+    @Benchmark
+    public Vm selectAndRelease() {
+        int i = next;
+        next = i + 1 == JOBS ? 0 : i + 1;
+        Cloudlet cloudlet = cloudlets[i];
+        Vm vm = scheduler.selectVM(i, decisions[i], cloudlet.getCloudletLength());
+        cloudlet.setVmId(vm.getId());
+        scheduler.cloudletFinished(cloudlet);
+        return vm;
+    }
+}
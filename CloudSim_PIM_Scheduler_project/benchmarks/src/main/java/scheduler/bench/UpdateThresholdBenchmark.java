@@ -0,0 +1,61 @@
+package scheduler.bench;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.cloudbus.cloudsim.Log;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import scheduler.PIMScheduler;
+
+/**
+ * Latency of feeding one actual-versus-predicted sample into the adaptive threshold.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class UpdateThresholdBenchmark {
+
+    @Param({"1000", "100000", "1000000"})
+    public int cloudlets;
+
+    private PIMScheduler scheduler;
+    private double[] actual;
+    private double[] predicted;
+    private int next;
+
+    @Setup
+    public void setup() {
+        Log.disable();
+        scheduler = new PIMScheduler();
+        Workload workload = Workload.generate(cloudlets);
+        Random rand = new Random(42);
+        actual = new double[cloudlets];
+        predicted = new double[cloudlets];
+        for (int i = 0; i < cloudlets; i++) {
+            predicted[i] = workload.length[i] / 100000.0;
+            actual[i] = predicted[i] * (0.5 + rand.nextDouble() * 10);
+        }
+    }
+
+    @Benchmark
+    public double updateThreshold() {
+        int i = next;
+        next = i + 1 == cloudlets ? 0 : i + 1;
+        scheduler.updateThreshold(actual[i], predicted[i]);
+        return scheduler.getCurrentThreshold();
+    }
+}
@@ -0,0 +1,37 @@
+package scheduler.bench;
+
+import java.util.Random;
+
+/**
+ * Synthetic jobs drawn the same way as in CloudSimExample1, seeded with Random(42).
+ */
+final class Workload {
+
+    final int[] ids;
+    final int[] ram;
+    final long[] length;
+    final double[] deadline;
+
+    private Workload(int size) {
+        ids = new int[size];
+        ram = new int[size];
+        length = new long[size];
+        deadline = new double[size];
+    }
+
+    static Workload generate(int size) {
+        Workload workload = new Workload(size);
+        Random rand = new Random(42);
+        for (int i = 0; i < size; i++) {
+            workload.ids[i] = i;
+            workload.length[i] = 1000 + rand.nextInt(500000); // Length from 1k to 500k
+            workload.ram[i] = 256 + rand.nextInt(4096);       // RAM from 256MB to ~4GB
+            workload.deadline[i] = 10.0 + rand.nextDouble() * 90.0; // Deadline from 10 to 100 sec
+        }
+        return workload;
+    }
+
+    int size() {
+        return ids.length;
+    }
+}
@@ -2,101 +2,144 @@ package org.cloudbus.cloudsim.examples;
 
 import org.cloudbus.cloudsim.*;
 import org.cloudbus.cloudsim.core.CloudSim;
+import org.cloudbus.cloudsim.lists.VmList;
 import org.cloudbus.cloudsim.provisioners.*;
+import scheduler.PIMDatacenterBroker;
+import scheduler.JobBatcher;
 import scheduler.PIMScheduler;
+import scheduler.ProfileCache;
+import scheduler.RuntimePredictor;
+import pimsim.CloudletSchedulerCPU;
+import pimsim.CloudletSchedulerPIM;
+import pimsim.ExecutionType;
+import pimsim.HeterogeneousDatacenter;
 import pimsim.HeterogeneousHostConfig;
+import pimsim.PimCloudlet;
+import pimsim.TypedVm;
+import pimsim.VmAllocationPolicyTyped;
 
 import java.text.DecimalFormat;
 import java.util.*;
 import java.io.*;
 
+/**
+ * Runs 300 jobs of random length, RAM and deadline on three CPU and three PIM VMs. The jobs are
+ * released to a {@link PIMDatacenterBroker} one every ARRIVAL_INTERVAL seconds and classified as
+ * they are dispatched, with the threshold adapted to the jobs that returned before them. Options:
+ * <ul>
+ * <li>--hybrid: every fifth job is a hybrid job, split by the scheduler between a PIM and a CPU VM</li>
+ * <li>--profile: the first job of each shape is profiled by probe runs on a reserved PIM VM and a
+ * reserved CPU VM, each on a host of its own, and the measured rates classify the jobs of that shape</li>
+ * <li>--edf: waiting jobs are dispatched earliest deadline first, each to the VM with the most slack
+ * before its deadline</li>
+ * <li>--batch: small PIM jobs are coalesced into batches, so the launch overhead of the PIM VMs is paid
+ * once per batch</li>
+ * <li>--model: predicted times come from the runtime model in MODEL_FILE, if one exists, and the model
+ * is retrained on this run's results at the end</li>
+ * </ul>
+ */
 public class CloudSimExample1 {
 
+    private static final String RESULTS_FILE = "results_dynamic.csv";
+    private static final String MODEL_FILE = "runtime_model.bin";
+    private static final double ARRIVAL_INTERVAL = 5.0; // seconds between job releases
+    private static final int HYBRID_EVERY = 5; // with --hybrid, every fifth job is a hybrid job
+    private static final int PROFILE_CACHE_SIZE = 64;
+    private static final double PIM_LAUNCH_OVERHEAD = 0.5; // seconds to launch a cloudlet on a PIM VM
+    private static final double BATCH_MAX_WAIT = 30.0; // with --batch, seconds a small job waits for company
+
     public static void main(String[] args) {
         Log.printLine("Starting CloudSimExample1...");
+        Set<String> options = new HashSet<>(Arrays.asList(args));
 
         try {
             // 1. Initialize CloudSim
             CloudSim.init(1, Calendar.getInstance(), false);
 
             // 2. Create Datacenter with CPU and PIM hosts
-            Datacenter datacenter0 = createDatacenter("Datacenter_0");
+            boolean profiling = options.contains("--profile");
+            HeterogeneousDatacenter datacenter0 = createDatacenter("Datacenter_0", profiling);
 
-            // 3. Create Broker
-            DatacenterBroker broker = new DatacenterBroker("Broker");
+            // 3. Create Broker; it classifies and places each job when it dispatches it, and feeds
+            // returned cloudlets back into the scheduler during the run
+            PIMScheduler scheduler = new PIMScheduler();
+            PIMDatacenterBroker broker = new PIMDatacenterBroker("Broker", scheduler);
             int brokerId = broker.getId();
+            broker.setRecordPredictions(true); // for the results file
+            broker.setEdfDispatch(options.contains("--edf"));
+            if (options.contains("--batch")) {
+                broker.setBatcher(new JobBatcher(JobBatcher.DEFAULT_SMALL_JOB_LENGTH,
+                        JobBatcher.DEFAULT_MAX_BATCH_LENGTH, BATCH_MAX_WAIT));
+            }
+
+            // With --model, predicted times come from the model trained on the previous run's results
+            boolean useModel = options.contains("--model");
+            if (useModel && new java.io.File(MODEL_FILE).exists()) {
+                scheduler.setPredictor(RuntimePredictor.load(MODEL_FILE));
+            }
 
             // 4. Create VMs
             List<Vm> vmList = new ArrayList<>();
             // CPU VMs
-            vmList.add(new Vm(0, brokerId, 10000, 1, 2048, 1000, 10000, "Xen", new CloudletSchedulerSpaceShared()));
-            vmList.add(new Vm(1, brokerId, 9000, 1, 2048, 1000, 10000, "Xen", new CloudletSchedulerSpaceShared()));
-            vmList.add(new Vm(2, brokerId, 8000, 1, 4096, 1000, 10000, "Xen", new CloudletSchedulerSpaceShared()));
+            vmList.add(new TypedVm(0, brokerId, 10000, 1, 2048, 1000, 10000, "Xen", new CloudletSchedulerCPU(), ExecutionType.CPU));
+            vmList.add(new TypedVm(1, brokerId, 9000, 1, 2048, 1000, 10000, "Xen", new CloudletSchedulerCPU(), ExecutionType.CPU));
+            vmList.add(new TypedVm(2, brokerId, 8000, 1, 4096, 1000, 10000, "Xen", new CloudletSchedulerCPU(), ExecutionType.CPU));
             // PIM VMs
-            vmList.add(new Vm(3, brokerId, 8000, 1, 4096, 1000, 10000, "Xen", new CloudletSchedulerSpaceShared()));
-            vmList.add(new Vm(4, brokerId, 7000, 1, 4096, 1000, 10000, "Xen", new CloudletSchedulerSpaceShared()));
-            vmList.add(new Vm(5, brokerId, 7000, 1, 3072, 1000, 10000, "Xen", new CloudletSchedulerSpaceShared()));
+            vmList.add(new TypedVm(3, brokerId, 8000, 1, 4096, 1000, 10000, "Xen", newPimScheduler(), ExecutionType.PIM));
+            vmList.add(new TypedVm(4, brokerId, 7000, 1, 4096, 1000, 10000, "Xen", newPimScheduler(), ExecutionType.PIM));
+            vmList.add(new TypedVm(5, brokerId, 7000, 1, 3072, 1000, 10000, "Xen", newPimScheduler(), ExecutionType.PIM));
+
+            // 5. Register the VMs with the scheduler under their declared types; the broker updates
+            // their power draw from the hosts VmAllocationPolicyTyped actually places them on
+            for (Vm vm : vmList) {
+                scheduler.registerVm(vm);
+            }
+
+            // Probe VMs are the broker's alone: they are not registered, so no job is placed on them
+            if (profiling) {
+                Vm cpuProbeVm = new TypedVm(6, brokerId, 9000, 1, 2048, 1000, 10000, "Xen", new CloudletSchedulerCPU(), ExecutionType.CPU);
+                Vm pimProbeVm = new TypedVm(7, brokerId, 7000, 1, 4096, 1000, 10000, "Xen", newPimScheduler(), ExecutionType.PIM);
+                vmList.add(cpuProbeVm);
+                vmList.add(pimProbeVm);
+                broker.enableProfiling(pimProbeVm, cpuProbeVm, new ProfileCache(PROFILE_CACHE_SIZE));
+            }
             broker.submitVmList(vmList);
 
-            // 5. Create Cloudlets
-            List<Cloudlet> cloudletList = new ArrayList<>();
+            // 6. Create Cloudlets and release them to the broker over time, so that each job is
+            // classified with the threshold adapted to the jobs that finished before it
             UtilizationModel utilization = new UtilizationModelFull();
-
-            List<Integer> lengths = new ArrayList<>();
-            List<Integer> rams = new ArrayList<>();
-            List<Double> deadlines = new ArrayList<>();
+            Map<Integer, Integer> ramMap = new HashMap<>();
             int numCloudlets = 300;
 
             Random rand = new Random(42); // Seed for reproducibility
+            Random hybridRand = new Random(7); // separate, so the jobs are the same with and without --hybrid
 
             for (int i = 0; i < numCloudlets; i++) {
                 int len = 1000 + rand.nextInt(500000); // Length from 1k to 500k
                 int ram = 256 + rand.nextInt(4096);    // RAM from 256MB to ~4GB
                 double ddl = 10.0 + rand.nextDouble() * 90.0; // Deadline from 10 to 100 sec
 
-                lengths.add(len);
-                rams.add(ram);
-                deadlines.add(ddl);
-            }
-
-            Map<Integer, Integer> ramMap = new HashMap<>();
-            Map<Integer, Double> deadlineMap = new HashMap<>();
-
-            for (int i = 0; i < numCloudlets; i++) {
-                Cloudlet cl = new Cloudlet(i, lengths.get(i), 1, 300, 300, utilization, utilization, utilization);
-                cl.setUserId(brokerId);
-                cloudletList.add(cl);
-                ramMap.put(i, rams.get(i));
-                deadlineMap.put(i, deadlines.get(i));
-            }
-
-            // 6. Scheduler: Use PIMScheduler for profiling + assignment
-            for (Cloudlet cl : cloudletList) {
-                int id = cl.getCloudletId();
-                int ram = ramMap.get(id);
-                long len = cl.getCloudletLength();
-                double ddl = deadlineMap.get(id);
-
-                String decision = PIMScheduler.classifyJob(id, ram, len, ddl);
-                Vm chosenVM = PIMScheduler.selectVM(vmList, decision);
-
-                if (chosenVM != null) {
-                    cl.setVmId(chosenVM.getId());
-                    Log.printLine("Assigned Cloudlet " + id + " to VM " + chosenVM.getId() + " (" + decision + ")");
+                Cloudlet cl = new PimCloudlet(i, len, 1, 300, 300, utilization, utilization, utilization, ram);
+                if (options.contains("--hybrid") && i % HYBRID_EVERY == HYBRID_EVERY - 1) {
+                    double offloadable = 0.3 + hybridRand.nextDouble() * 0.6; // 30% to 90% of the job
+                    broker.submitHybridJob(cl, ram, offloadable, i * ARRIVAL_INTERVAL);
                 } else {
-                    Log.printLine("No suitable VM found for Cloudlet " + id);
+                    broker.submitJob(cl, ram, ddl, i * ARRIVAL_INTERVAL);
                 }
+                ramMap.put(i, ram);
             }
 
-            // 7. Submit jobs to broker
-            broker.submitCloudletList(cloudletList);
-
-            // 8. Run Simulation
+            // 7. Run Simulation
             CloudSim.startSimulation();
             CloudSim.stopSimulation();
 
-            // 9. Print Results
-            printCloudletList(broker.getCloudletReceivedList());
+            // 8. Print Results
+            printCloudletList(broker.getCloudletReceivedList(), broker, ramMap, vmList, scheduler, datacenter0);
+
+            // 9. Train the runtime model for the next run on these results
+            if (useModel) {
+                RuntimePredictor.train(RESULTS_FILE).save(MODEL_FILE);
+            }
             Log.printLine("CloudSimExample1 finished!");
 
         } catch (Exception e) {
@@ -105,18 +148,30 @@ public class CloudSimExample1 {
         }
     }
 
-    private static Datacenter createDatacenter(String name) throws Exception {
+    private static CloudletSchedulerPIM newPimScheduler() {
+        return new CloudletSchedulerPIM(CloudletSchedulerPIM.DEFAULT_BANKS,
+                CloudletSchedulerPIM.DEFAULT_BANK_BANDWIDTH, PIM_LAUNCH_OVERHEAD);
+    }
+
+    private static HeterogeneousDatacenter createDatacenter(String name, boolean probeHosts) throws Exception {
         List<Host> hosts = new ArrayList<>();
         hosts.addAll(HeterogeneousHostConfig.generateMultipleCPUHosts());
         hosts.addAll(HeterogeneousHostConfig.generateMultiplePIMHosts());
+        if (probeHosts) {
+            // just big enough for the probe VMs, so the regular VMs still go to hosts 0-5
+            hosts.add(HeterogeneousHostConfig.createCPUHost(6, 9000, 2048));
+            hosts.add(HeterogeneousHostConfig.createPIMHost(7, 7000, 4096));
+        }
 
         DatacenterCharacteristics dcChars = new DatacenterCharacteristics(
                 "x86", "Linux", "Xen", hosts, 10.0, 3.0, 0.05, 0.001, 0.0);
 
-        return new Datacenter(name, dcChars, new VmAllocationPolicySimple(hosts), new LinkedList<>(), 0.1);
+        return new HeterogeneousDatacenter(name, dcChars, new VmAllocationPolicyTyped(hosts), new LinkedList<>(), 0.1);
     }
 
-    private static void printCloudletList(List<Cloudlet> list) {
+    private static void printCloudletList(List<Cloudlet> list, PIMDatacenterBroker broker,
+                                          Map<Integer, Integer> ramMap, List<Vm> vmList,
+                                          PIMScheduler scheduler, HeterogeneousDatacenter datacenter) {
         DecimalFormat dft = new DecimalFormat("###.##");
         String indent = "    ";
         Log.printLine("\n========== OUTPUT ==========");
@@ -131,35 +186,24 @@ public class CloudSimExample1 {
                         dft.format(c.getExecStartTime()) + indent + indent + dft.format(c.getFinishTime()));
             }
             Log.printLine();
-
-            double actualTime = c.getActualCPUTime();
-            int id = c.getCloudletId();
-            double predictedTime = PIMScheduler.getPredictedTime(id);
-
-            if (predictedTime > 0) {
-                PIMScheduler.updateThreshold(actualTime, predictedTime);
-            }
         }
 
         // Write results to CSV file
-        try (PrintWriter writer = new PrintWriter(new FileWriter("results_dynamic.csv"))) {
-            writer.println("CloudletID,VMID,Type,PredictedTime,ActualTime,Error,Threshold");
+        try (PrintWriter writer = new PrintWriter(new FileWriter(RESULTS_FILE))) {
+            writer.println("CloudletID,VMID,Type,PredictedTime,ActualTime,Error,Threshold,Length,Ram,Mips");
 
             for (Cloudlet c : list) {
                 double actualTime = c.getActualCPUTime();
                 int id = c.getCloudletId();
-                double predictedTime = PIMScheduler.getPredictedTime(id);
-
-                if (predictedTime > 0) {
-                    PIMScheduler.updateThreshold(actualTime, predictedTime);
-                }
-
+                double predictedTime = broker.getPredictedTime(id);
                 double error = (predictedTime > 0) ? Math.abs(actualTime - predictedTime) / actualTime : 0;
-                String type = (c.getVmId() == 0 || c.getVmId() == 1 || c.getVmId() == 2) ? "CPU" : "PIM";
-                double threshold = PIMScheduler.getCurrentThreshold();
+                ExecutionType type = datacenter.getTypeIndex().getVmType(c.getUserId(), c.getVmId());
+                double threshold = scheduler.getCurrentThreshold(); // as adapted by the end of the run
 
-                writer.printf("%d,%d,%s,%.2f,%.2f,%.4f,%.5f%n",
-                        id, c.getVmId(), type, predictedTime, actualTime, error, threshold);
+                Vm vm = VmList.getById(vmList, c.getVmId());
+                writer.printf("%d,%d,%s,%.2f,%.2f,%.4f,%.5f,%d,%d,%.0f%n",
+                        id, c.getVmId(), type, predictedTime, actualTime, error, threshold,
+                        c.getCloudletLength(), ramMap.get(id), vm.getMips() * vm.getNumberOfPes());
             }
         } catch (IOException e) {
             e.printStackTrace();
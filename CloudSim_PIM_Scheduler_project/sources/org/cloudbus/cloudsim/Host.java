@@ -309,7 +309,7 @@ public class Host {
 	 * @return the pes number
 	 */
 	public int getNumberOfPes() {
-		return getPeList().size();
+		return PeList.getNumberOfPes(getPeList());
 	}
 
 	/**
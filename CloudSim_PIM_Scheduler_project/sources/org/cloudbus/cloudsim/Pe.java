@@ -163,6 +163,41 @@ public class Pe {
 		this.peProvisioner = peProvisioner;
 	}
 
+	/**
+	 * Gets the number of identical cores this Pe stands for. A plain Pe is a single core;
+	 * subclasses that model a group of cores report the group size, so that {@link PeList}
+	 * and the hosts count every core.
+	 * 
+	 * @return the number of cores
+	 * @pre $none
+	 * @post $result > 0
+	 */
+	public int getNumberOfCores() {
+		return 1;
+	}
+
+	/**
+	 * Gets the number of cores of this Pe that are free.
+	 * 
+	 * @return the number of free cores
+	 * @pre $none
+	 * @post $result >= 0
+	 */
+	public int getNumberOfFreeCores() {
+		return getStatus() == FREE ? 1 : 0;
+	}
+
+	/**
+	 * Gets the number of cores of this Pe that are busy.
+	 * 
+	 * @return the number of busy cores
+	 * @pre $none
+	 * @post $result >= 0
+	 */
+	public int getNumberOfBusyCores() {
+		return getStatus() == BUSY ? 1 : 0;
+	}
+
 	/**
 	 * Gets the Pe provisioner.
 	 * 
@@ -0,0 +1,420 @@
+/*
+ * Title:        CloudSim Toolkit
+ * Description:  CloudSim (Cloud Simulation) Toolkit for Modeling and Simulation of Clouds
+ * Licence:      GPL - http://www.gnu.org/copyleft/gpl.html
+ *
+ * Copyright (c) 2009-2012, The University of Melbourne, Australia
+ */
+
+package org.cloudbus.cloudsim.core;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+
+/**
+ * A {@link FutureEventQueue} implemented as a calendar queue (R. Brown, "Calendar queues: a fast
+ * O(1) priority queue implementation for the simulation event set problem", CACM 31(10), 1988).
+ * Time is cut into slots of equal width, and slot <i>k</i> maps to bucket <i>k</i> mod the number
+ * of buckets, like the days of a year. Each bucket keeps its events sorted, and the queue scans the
+ * buckets from the slot of the last event it returned. The number of buckets follows the number of
+ * events, and the slot width is resampled from the spacing of the first events whenever it does, so
+ * that adding and polling take O(1) on average when event times are reasonably spread.
+ * <p>
+ * The iterator returns the events bucket by bucket, not in queue order, and does not support
+ * removal.
+ *
+ * @see FutureEventQueue
+ */
+public class CalendarFutureQueue implements FutureEventQueue {
+
+	/** The smallest number of buckets. */
+	private static final int MIN_BUCKETS = 16;
+
+	/** The number of first events sampled to choose the slot width. */
+	private static final int WIDTH_SAMPLE = 25;
+
+	/** The initial slot width. */
+	private static final double INITIAL_WIDTH = 1.0;
+
+	/** The buckets. */
+	private Bucket[] buckets;
+
+	/** The slot width. */
+	private double width = INITIAL_WIDTH;
+
+	/** The slot being scanned; no event lies in an earlier slot. */
+	private long currentSlot = 0;
+
+	/** The number of events in the queue. */
+	private int size = 0;
+
+	/** The serial. */
+	private long serial = 0;
+
+	/** The serial of events added to the head, below every serial given by addEvent. */
+	private long firstSerial = Long.MIN_VALUE;
+
+	/**
+	 * Creates an empty calendar queue.
+	 */
+	public CalendarFutureQueue() {
+		buckets = newBuckets(MIN_BUCKETS);
+	}
+
+	@Override
+	public void addEvent(SimEvent newEvent) {
+		newEvent.setSerial(serial++);
+		insert(newEvent);
+		if (size > 2 * buckets.length) {
+			resize(2 * buckets.length);
+		}
+	}
+
+	@Override
+	public void addEventFirst(SimEvent newEvent) {
+		newEvent.setSerial(firstSerial++);
+		insert(newEvent);
+		if (size > 2 * buckets.length) {
+			resize(2 * buckets.length);
+		}
+	}
+
+	@Override
+	public SimEvent peek() {
+		int index = locateFirst();
+		return index < 0 ? null : buckets[index].first();
+	}
+
+	@Override
+	public SimEvent poll() {
+		int index = locateFirst();
+		if (index < 0) {
+			return null;
+		}
+		SimEvent first = buckets[index].pollFirst();
+		size--;
+		if (size < buckets.length / 2 && buckets.length > MIN_BUCKETS) {
+			resize(buckets.length / 2);
+		}
+		return first;
+	}
+
+	/**
+	 * Simultaneous events share a slot and so a bucket, where they sit together at its head; they
+	 * are drained from there directly.
+	 */
+	@Override
+	public int pollBatch(List<SimEvent> batch) {
+		int index = locateFirst();
+		if (index < 0) {
+			return 0;
+		}
+		Bucket bucket = buckets[index];
+		double time = bucket.first().eventTime();
+		int count = 0;
+		do {
+			batch.add(bucket.pollFirst());
+			count++;
+		} while (bucket.head < bucket.tail && bucket.first().eventTime() == time);
+		size -= count;
+		if (size < buckets.length / 2 && buckets.length > MIN_BUCKETS) {
+			resize(buckets.length / 2);
+		}
+		return count;
+	}
+
+	@Override
+	public Iterator<SimEvent> iterator() {
+		return new Iterator<SimEvent>() {
+
+			private int bucket = 0;
+
+			private int next = -1;
+
+			@Override
+			public boolean hasNext() {
+				advance();
+				return bucket < buckets.length;
+			}
+
+			@Override
+			public SimEvent next() {
+				if (!hasNext()) {
+					throw new NoSuchElementException();
+				}
+				return buckets[bucket].events[next++];
+			}
+
+			@Override
+			public void remove() {
+				throw new UnsupportedOperationException("Use CalendarFutureQueue.remove(SimEvent)");
+			}
+
+			private void advance() {
+				if (next < 0 && bucket < buckets.length) {
+					next = buckets[bucket].head;
+				}
+				while (bucket < buckets.length && next >= buckets[bucket].tail) {
+					bucket++;
+					if (bucket < buckets.length) {
+						next = buckets[bucket].head;
+					}
+				}
+			}
+		};
+	}
+
+	@Override
+	public int size() {
+		return size;
+	}
+
+	@Override
+	public boolean remove(SimEvent event) {
+		if (buckets[bucketOf(slotOf(event.eventTime()))].remove(event)) {
+			size--;
+			return true;
+		}
+		return false;
+	}
+
+	@Override
+	public boolean removeAll(Collection<SimEvent> events) {
+		boolean removed = false;
+		for (SimEvent event : events) {
+			removed |= remove(event);
+		}
+		return removed;
+	}
+
+	@Override
+	public void clear() {
+		buckets = newBuckets(MIN_BUCKETS);
+		width = INITIAL_WIDTH;
+		currentSlot = 0;
+		size = 0;
+	}
+
+	/**
+	 * Returns the slot width currently used.
+	 *
+	 * @return the width, in simulation time units
+	 */
+	public double getWidth() {
+		return width;
+	}
+
+	/**
+	 * Returns the number of buckets currently used.
+	 *
+	 * @return the number of buckets
+	 */
+	public int getBucketCount() {
+		return buckets.length;
+	}
+
+	/**
+	 * Puts the event in the bucket of its slot, moving the scan back if the event is earlier.
+	 *
+	 * @param event the event
+	 */
+	private void insert(SimEvent event) {
+		long slot = slotOf(event.eventTime());
+		if (slot < currentSlot) {
+			currentSlot = slot;
+		}
+		buckets[bucketOf(slot)].add(event);
+		size++;
+	}
+
+	/**
+	 * Finds the bucket holding the first event and moves the scan to its slot.
+	 *
+	 * @return the bucket index, or -1 if the queue is empty
+	 */
+	private int locateFirst() {
+		if (size == 0) {
+			return -1;
+		}
+		// scan one year of slots from the current one
+		for (int i = 0; i < buckets.length; i++) {
+			int index = bucketOf(currentSlot);
+			Bucket bucket = buckets[index];
+			if (bucket.head < bucket.tail && slotOf(bucket.first().eventTime()) <= currentSlot) {
+				return index;
+			}
+			currentSlot++;
+		}
+
+		// the next event is more than a year away: take the earliest bucket head directly
+		int earliest = -1;
+		for (int index = 0; index < buckets.length; index++) {
+			Bucket bucket = buckets[index];
+			if (bucket.head < bucket.tail
+					&& (earliest < 0 || bucket.first().compareTo(buckets[earliest].first()) < 0)) {
+				earliest = index;
+			}
+		}
+		currentSlot = slotOf(buckets[earliest].first().eventTime());
+		return earliest;
+	}
+
+	/**
+	 * Moves all events into a new set of buckets, with a slot width sampled from the spacing of the
+	 * first events.
+	 *
+	 * @param bucketCount the new number of buckets
+	 */
+	private void resize(int bucketCount) {
+		double newWidth = sampleWidth();
+		Bucket[] old = buckets;
+		buckets = newBuckets(bucketCount);
+		width = newWidth;
+		currentSlot = Long.MAX_VALUE;
+		size = 0;
+		for (Bucket bucket : old) {
+			for (int i = bucket.head; i < bucket.tail; i++) {
+				insert(bucket.events[i]);
+			}
+		}
+		if (size == 0) {
+			currentSlot = 0;
+		}
+	}
+
+	/**
+	 * Estimates a slot width of about three times the average spacing of the first events, leaving
+	 * out unusually long gaps. The sampled events are polled and put back.
+	 *
+	 * @return the new slot width
+	 */
+	private double sampleWidth() {
+		int samples = Math.min(size, WIDTH_SAMPLE);
+		if (samples < 2) {
+			return width;
+		}
+		SimEvent[] first = new SimEvent[samples];
+		for (int i = 0; i < samples; i++) {
+			int index = locateFirst();
+			first[i] = buckets[index].pollFirst();
+			size--;
+		}
+		for (SimEvent event : first) {
+			insert(event);
+		}
+
+		double total = first[samples - 1].eventTime() - first[0].eventTime();
+		if (total <= 0) {
+			return width;
+		}
+		double average = total / (samples - 1);
+		double kept = 0;
+		int gaps = 0;
+		for (int i = 1; i < samples; i++) {
+			double gap = first[i].eventTime() - first[i - 1].eventTime();
+			if (gap <= 2 * average) {
+				kept += gap;
+				gaps++;
+			}
+		}
+		double newWidth = 3 * kept / gaps;
+		return newWidth > 0 ? newWidth : width;
+	}
+
+	/**
+	 * Returns the slot a time falls into.
+	 *
+	 * @param time the time
+	 * @return the slot
+	 */
+	private long slotOf(double time) {
+		return (long) (time / width);
+	}
+
+	/**
+	 * Returns the bucket of a slot.
+	 *
+	 * @param slot the slot
+	 * @return the bucket index
+	 */
+	private int bucketOf(long slot) {
+		return (int) (slot % buckets.length);
+	}
+
+	private static Bucket[] newBuckets(int count) {
+		Bucket[] buckets = new Bucket[count];
+		for (int i = 0; i < count; i++) {
+			buckets[i] = new Bucket();
+		}
+		return buckets;
+	}
+
+	/**
+	 * The events of one bucket, sorted, in events[head..tail). Events are usually added in order,
+	 * so adding appends and polling advances the head.
+	 */
+	private static final class Bucket {
+
+		private SimEvent[] events = new SimEvent[4];
+
+		private int head = 0;
+
+		private int tail = 0;
+
+		SimEvent first() {
+			return events[head];
+		}
+
+		SimEvent pollFirst() {
+			SimEvent first = events[head];
+			events[head++] = null;
+			if (head == tail) {
+				head = 0;
+				tail = 0;
+			}
+			return first;
+		}
+
+		void add(SimEvent event) {
+			int position = tail;
+			while (position > head && events[position - 1].compareTo(event) > 0) {
+				position--;
+			}
+			if (tail == events.length) {
+				if (head > events.length / 2) {
+					// compact instead of growing when half of the array is polled space
+					System.arraycopy(events, head, events, 0, tail - head);
+					Arrays.fill(events, tail - head, tail, null);
+					position -= head;
+					tail -= head;
+					head = 0;
+				} else {
+					events = Arrays.copyOf(events, events.length * 2);
+				}
+			}
+			System.arraycopy(events, position, events, position + 1, tail - position);
+			events[position] = event;
+			tail++;
+		}
+
+		boolean remove(SimEvent event) {
+			for (int i = head; i < tail; i++) {
+				if (events[i] == event) {
+					System.arraycopy(events, i + 1, events, i, tail - i - 1);
+					events[--tail] = null;
+					if (head == tail) {
+						head = 0;
+						tail = 0;
+					}
+					return true;
+				}
+			}
+			return false;
+		}
+
+	}
+
+}
@@ -9,6 +9,7 @@
 package org.cloudbus.cloudsim.core;
 
 import java.util.ArrayList;
+import java.util.BitSet;
 import java.util.Calendar;
 import java.util.HashMap;
 import java.util.Iterator;
@@ -21,6 +22,7 @@ import org.cloudbus.cloudsim.Log;
 import org.cloudbus.cloudsim.core.predicates.Predicate;
 import org.cloudbus.cloudsim.core.predicates.PredicateAny;
 import org.cloudbus.cloudsim.core.predicates.PredicateNone;
+import org.cloudbus.cloudsim.core.predicates.PredicateType;
 
 /**
  * This class extends the CloudSimCore to enable network simulation in CloudSim. Also, it disables
@@ -62,6 +64,9 @@ public class CloudSim {
 	/** The termination time. */
 	private static double terminateAt = -1;
 
+	/** The number of tombstones in the future queue below which they are never purged. */
+	private static final int MIN_TOMBSTONE_PURGE = 64;
+
 	/** The minimal time between events. Events within shorter periods after the last event are discarded. */
 	private static double minTimeBetweenEvents = 0.1;
 	
@@ -165,6 +170,33 @@ public class CloudSim {
 	    init(numUser, cal, traceFlag);
 	    minTimeBetweenEvents = periodBetweenEvents;
 	}
+
+	/**
+	 * Initialises CloudSim parameters with a given future event queue. This method should be called
+	 * before creating any entities. The queue is cleared and used for this simulation only; later
+	 * calls to {@link #init(int, Calendar, boolean)} go back to a {@link FutureQueue}.
+	 * 
+	 * @param numUser the number of User Entities created
+	 * @param cal starting time for this simulation. If it is <tt>null</tt>, then the time will be
+	 *            taken from <tt>Calendar.getInstance()</tt>
+	 * @param traceFlag <tt>true</tt> if CloudSim trace need to be written
+	 * @param futureQueue the future event queue, e.g. a {@link HeapFutureQueue} or a
+	 *            {@link CalendarFutureQueue}
+	 * @see #init(int, Calendar, boolean)
+	 * @pre numUser >= 0
+	 * @pre futureQueue != null
+	 * @post $none
+	 */
+	public static void init(int numUser, Calendar cal, boolean traceFlag, FutureEventQueue futureQueue) {
+		if (futureQueue == null) {
+			throw new IllegalArgumentException("The future event queue can't be null.");
+		}
+
+		init(numUser, cal, traceFlag);
+		// no event has been scheduled yet, so the queue can simply be swapped
+		futureQueue.clear();
+		future = futureQueue;
+	}
 	
 	
 	
@@ -311,11 +343,26 @@ public class CloudSim {
 	private static List<SimEntity> entities;
 
 	/** The future event queue. */
-	protected static FutureQueue future;
+	protected static FutureEventQueue future;
 
 	/** The deferred event queue. */
 	protected static DeferredQueue deferred;
 
+	/**
+	 * The entities to run in the next clock tick: those that have been made runnable or have had
+	 * events deferred to them since they last ran. Other entities have nothing to process.
+	 */
+	private static BitSet activeEntities;
+
+	/** The index of the future events by source and tag. */
+	private static FutureEventIndex futureIndex;
+
+	/** The number of cancelled events still in the future queue. */
+	private static int tombstones;
+
+	/** The events processed in the current clock tick, reused between ticks. */
+	private static final List<SimEvent> batch = new ArrayList<SimEvent>();
+
 	/** The simulation clock. */
 	private static double clock;
 
@@ -348,6 +395,9 @@ public class CloudSim {
 		entitiesByName = new LinkedHashMap<String, SimEntity>();
 		future = new FutureQueue();
 		deferred = new DeferredQueue();
+		futureIndex = new FutureEventIndex();
+		tombstones = 0;
+		activeEntities = new BitSet();
 		waitPredicates = new HashMap<Integer, Predicate>();
 		clock = 0;
 		running = false;
@@ -475,13 +525,14 @@ public class CloudSim {
 		if (running) {
 			// Post an event to make this entity
 			evt = new SimEvent(SimEvent.CREATE, clock, 1, 0, 0, e);
-			future.addEvent(evt);
+			schedule(evt);
 		}
 		if (e.getId() == -1) { // Only add once!
 			int id = entities.size();
 			e.setId(id);
 			entities.add(e);
 			entitiesByName.put(e.getName(), e);
+			activate(id);
 		}
 	}
 
@@ -512,7 +563,11 @@ public class CloudSim {
 		
 		int entities_size = entities.size();
 
-		for (int i = 0; i < entities_size; i++) {
+		// Run the active entities in id order; entities activated during the loop with a higher
+		// id still run in this tick, the others in the next one
+		for (int i = activeEntities.nextSetBit(0); i >= 0 && i < entities_size; i = activeEntities
+				.nextSetBit(i + 1)) {
+			activeEntities.clear(i);
 			ent = entities.get(i);
 			if (ent.getState() == SimEntity.RUNNABLE) {
 				ent.run();
@@ -520,32 +575,25 @@ public class CloudSim {
 		}
 				
 		// If there are more future events then deal with them
-		if (future.size() > 0) {
-			List<SimEvent> toRemove = new ArrayList<SimEvent>();
-			Iterator<SimEvent> fit = future.iterator();
+		if (future.size() > tombstones) {
 			queue_empty = false;
-			SimEvent first = fit.next();
-			processEvent(first);
-			future.remove(first);
-
-			fit = future.iterator();
-
-			// Check if next events are at same time...
-			boolean trymore = fit.hasNext();
-			while (trymore) {
-				SimEvent next = fit.next();
-				if (next.eventTime() == first.eventTime()) {
-					processEvent(next);
-					toRemove.add(next);
-					trymore = fit.hasNext();
+			// The first event and all others at the same time; cancelled ones are dropped here
+			future.pollBatch(batch);
+			for (int i = 0; i < batch.size(); i++) {
+				SimEvent ev = batch.get(i);
+				if (ev.cancelled) {
+					tombstones--;
 				} else {
-					trymore = false;
+					futureIndex.remove(ev);
+					processEvent(ev);
 				}
 			}
-
-			future.removeAll(toRemove);
+			batch.clear();
 
 		} else {
+			// only cancelled events are left, if any
+			future.clear();
+			tombstones = 0;
 			queue_empty = true;
 			running = false;
 			printMessage("Simulation: No more future events");
@@ -569,7 +617,7 @@ public class CloudSim {
 	 */
 	public static void hold(int src, long delay) {
 		SimEvent e = new SimEvent(SimEvent.HOLD_DONE, clock + delay, src);
-		future.addEvent(e);
+		schedule(e);
 		entities.get(src).setState(SimEntity.HOLDING);
 	}
 
@@ -581,7 +629,7 @@ public class CloudSim {
 	 */
 	public static void pause(int src, double delay) {
 		SimEvent e = new SimEvent(SimEvent.HOLD_DONE, clock + delay, src);
-		future.addEvent(e);
+		schedule(e);
 		entities.get(src).setState(SimEntity.HOLDING);
 	}
 
@@ -600,7 +648,7 @@ public class CloudSim {
 		}
 
 		SimEvent e = new SimEvent(SimEvent.SEND, clock + delay, src, dest, tag, data);
-		future.addEvent(e);
+		schedule(e);
 	}
 
 	/**
@@ -619,6 +667,7 @@ public class CloudSim {
 
 		SimEvent e = new SimEvent(SimEvent.SEND, clock + delay, src, dest, tag, data);
 		future.addEventFirst(e);
+		futureIndex.add(e);
 	}
 
 	/**
@@ -645,16 +694,7 @@ public class CloudSim {
 	 * @return the int
 	 */
 	public static int waiting(int d, Predicate p) {
-		int count = 0;
-		SimEvent event;
-		Iterator<SimEvent> iterator = deferred.iterator();
-		while (iterator.hasNext()) {
-			event = iterator.next();
-			if ((event.getDestination() == d) && (p.match(event))) {
-				count++;
-			}
-		}
-		return count;
+		return deferred.count(d, p);
 	}
 
 	/**
@@ -662,19 +702,10 @@ public class CloudSim {
 	 * 
 	 * @param src the src
 	 * @param p the p
-	 * @return the sim event
+	 * @return the sim event, or <tt>null</tt> if no deferred event matches
 	 */
 	public static SimEvent select(int src, Predicate p) {
-		SimEvent ev = null;
-		Iterator<SimEvent> iterator = deferred.iterator();
-		while (iterator.hasNext()) {
-			ev = iterator.next();
-			if (ev.getDestination() == src && p.match(ev)) {
-				iterator.remove();
-				break;
-			}
-		}
-		return ev;
+		return deferred.select(src, p);
 	}
 
 	/**
@@ -682,39 +713,28 @@ public class CloudSim {
 	 * 
 	 * @param src the src
 	 * @param p the p
-	 * @return the sim event
+	 * @return the sim event, or <tt>null</tt> if no deferred event matches
 	 */
 	public static SimEvent findFirstDeferred(int src, Predicate p) {
-		SimEvent ev = null;
-		Iterator<SimEvent> iterator = deferred.iterator();
-		while (iterator.hasNext()) {
-			ev = iterator.next();
-			if (ev.getDestination() == src && p.match(ev)) {
-				break;
-			}
-		}
-		return ev;
+		return deferred.findFirst(src, p);
 	}
 
 	/**
-	 * Removes an event from the event queue.
+	 * Removes an event from the event queue. Only the future events sent by <tt>src</tt> are
+	 * looked at, and only those with the predicate's tags if it is a {@link PredicateType}.
 	 * 
 	 * @param src the src
 	 * @param p the p
-	 * @return the sim event
+	 * @return the sim event, or <tt>null</tt> if no future event matches
 	 */
 	public static SimEvent cancel(int src, Predicate p) {
-		SimEvent ev = null;
-		Iterator<SimEvent> iter = future.iterator();
-		while (iter.hasNext()) {
-			ev = iter.next();
-			if (ev.getSource() == src && p.match(ev)) {
-				iter.remove();
-				break;
-			}
+		List<SimEvent> matches = futureIndex.find(src, p, true);
+		if (matches.isEmpty()) {
+			return null;
 		}
-
-		return ev;
+		SimEvent first = matches.get(0);
+		markCancelled(first);
+		return first;
 	}
 
 	/**
@@ -726,16 +746,74 @@ public class CloudSim {
 	 * @return true, if successful
 	 */
 	public static boolean cancelAll(int src, Predicate p) {
-		SimEvent ev = null;
-		int previousSize = future.size();
-		Iterator<SimEvent> iter = future.iterator();
-		while (iter.hasNext()) {
-			ev = iter.next();
-			if (ev.getSource() == src && p.match(ev)) {
-				iter.remove();
+		List<SimEvent> matches = futureIndex.find(src, p, false);
+		for (SimEvent ev : matches) {
+			markCancelled(ev);
+		}
+		// CloudSim 3.0 compared the queue size after removal with the size before, so it always
+		// returned false; callers may rely on that, so the value is kept
+		return false;
+	}
+
+	/**
+	 * Marks an entity to be run in the next clock tick.
+	 * 
+	 * @param id the entity id
+	 */
+	static void activate(int id) {
+		if (activeEntities != null && id >= 0) {
+			activeEntities.set(id);
+		}
+	}
+
+	/**
+	 * Puts an event in the future queue and in its index.
+	 * 
+	 * @param e the event
+	 */
+	private static void schedule(SimEvent e) {
+		future.addEvent(e);
+		futureIndex.add(e);
+	}
+
+	/**
+	 * Returns the first future event that is not cancelled, dropping the tombstones ahead of it.
+	 * 
+	 * @return the event, or <tt>null</tt> if only cancelled events are left
+	 */
+	private static SimEvent firstLiveEvent() {
+		SimEvent first = future.peek();
+		while (first != null && first.cancelled) {
+			future.poll();
+			tombstones--;
+			first = future.peek();
+		}
+		return first;
+	}
+
+	/**
+	 * Cancels a future event by leaving it in the queue as a tombstone, which is dropped when it
+	 * reaches the head of the queue. Once tombstones outnumber the live events, they are all
+	 * removed in one pass, so cancelling stays cheap even where removal from the queue is not.
+	 * 
+	 * @param ev the event
+	 */
+	private static void markCancelled(SimEvent ev) {
+		futureIndex.remove(ev);
+		ev.cancelled = true;
+		tombstones++;
+		if (tombstones > MIN_TOMBSTONE_PURGE && tombstones > future.size() - tombstones) {
+			List<SimEvent> cancelled = new ArrayList<SimEvent>(tombstones);
+			Iterator<SimEvent> iter = future.iterator();
+			while (iter.hasNext()) {
+				SimEvent next = iter.next();
+				if (next.cancelled) {
+					cancelled.add(next);
+				}
 			}
+			future.removeAll(cancelled);
+			tombstones = 0;
 		}
-		return previousSize < future.size();
 	}
 
 	//
@@ -786,6 +864,7 @@ public class CloudSim {
 						}
 					} else {
 						deferred.addEvent(e);
+						activate(dest);
 					}
 				}
 				break;
@@ -890,9 +969,9 @@ public class CloudSim {
 				break;
 			}
 
+			SimEvent next = firstLiveEvent();
 			if (pauseAt != -1
-					&& ((future.size() > 0 && clock <= pauseAt && pauseAt <= future.iterator().next()
-							.eventTime()) || future.size() == 0 && pauseAt <= clock)) {
+					&& ((next != null && clock <= pauseAt && pauseAt <= next.eventTime()) || next == null && pauseAt <= clock)) {
 				pauseSimulation();
 				clock = pauseAt;
 			}
@@ -938,6 +1017,9 @@ public class CloudSim {
 		entitiesByName = null;
 		future = null;
 		deferred = null;
+		futureIndex = null;
+		tombstones = 0;
+		activeEntities = null;
 		clock = 0L;
 		running = false;
 
@@ -8,15 +8,22 @@
 
 package org.cloudbus.cloudsim.core;
 
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Iterator;
-import java.util.LinkedList;
 import java.util.List;
-import java.util.ListIterator;
+import java.util.NoSuchElementException;
+
+import org.cloudbus.cloudsim.core.predicates.Predicate;
+import org.cloudbus.cloudsim.core.predicates.PredicateAny;
 
 /**
- * This class implements the deferred event queue used by {@link Simulation}. The event queue uses a
- * linked list to store the events.
- * 
+ * This class implements the deferred event queue used by {@link Simulation}. Each destination
+ * entity has its own mailbox, an array of its deferred events in temporal order, so looking up the
+ * events of one entity never touches the events of the others. Events are deferred as the clock
+ * reaches them, so adding an event almost always appends it, and taking the first event of a
+ * mailbox only advances its head.
+ *
  * @author Marcos Dias de Assuncao
  * @since CloudSim Toolkit 1.0
  * @see Simulation
@@ -24,65 +31,247 @@ import java.util.ListIterator;
  */
 public class DeferredQueue {
 
-	/** The list. */
-	private final List<SimEvent> list = new LinkedList<SimEvent>();
+	/** The mailboxes, indexed by destination entity id. */
+	private final List<Mailbox> mailboxes = new ArrayList<Mailbox>();
 
-	/** The max time. */
-	private double maxTime = -1;
+	/** The number of events in all mailboxes. */
+	private int size = 0;
 
 	/**
-	 * Adds a new event to the queue. Adding a new event to the queue preserves the temporal order
-	 * of the events.
-	 * 
+	 * Adds a new event to the mailbox of its destination. Adding a new event to the queue preserves
+	 * the temporal order of the events.
+	 *
 	 * @param newEvent The event to be added to the queue.
 	 */
 	public void addEvent(SimEvent newEvent) {
-		// The event has to be inserted as the last of all events
-		// with the same event_time(). Yes, this matters.
-		double eventTime = newEvent.eventTime();
-		if (eventTime >= maxTime) {
-			list.add(newEvent);
-			maxTime = eventTime;
-			return;
+		int destination = newEvent.getDestination();
+		while (mailboxes.size() <= destination) {
+			mailboxes.add(null);
 		}
+		Mailbox mailbox = mailboxes.get(destination);
+		if (mailbox == null) {
+			mailbox = new Mailbox();
+			mailboxes.set(destination, mailbox);
+		}
+		mailbox.add(newEvent);
+		size++;
+	}
 
-		ListIterator<SimEvent> iterator = list.listIterator();
-		SimEvent event;
-		while (iterator.hasNext()) {
-			event = iterator.next();
-			if (event.eventTime() > eventTime) {
-				iterator.previous();
-				iterator.add(newEvent);
-				return;
+	/**
+	 * Counts the events for an entity that match a predicate.
+	 *
+	 * @param destination the entity id
+	 * @param p the predicate
+	 * @return the number of matching events
+	 */
+	public int count(int destination, Predicate p) {
+		Mailbox mailbox = mailbox(destination);
+		if (mailbox == null) {
+			return 0;
+		}
+		if (p instanceof PredicateAny) {
+			return mailbox.size();
+		}
+		int count = 0;
+		for (int i = mailbox.head; i < mailbox.tail; i++) {
+			if (p.match(mailbox.events[i])) {
+				count++;
 			}
 		}
+		return count;
+	}
 
-		list.add(newEvent);
+	/**
+	 * Returns the first event for an entity that matches a predicate, leaving it in the queue.
+	 *
+	 * @param destination the entity id
+	 * @param p the predicate
+	 * @return the event, or <tt>null</tt> if none matches
+	 */
+	public SimEvent findFirst(int destination, Predicate p) {
+		Mailbox mailbox = mailbox(destination);
+		if (mailbox == null) {
+			return null;
+		}
+		int index = mailbox.indexOf(p);
+		return index < 0 ? null : mailbox.events[index];
 	}
 
 	/**
-	 * Returns an iterator to the events in the queue.
-	 * 
+	 * Removes and returns the first event for an entity that matches a predicate.
+	 *
+	 * @param destination the entity id
+	 * @param p the predicate
+	 * @return the event, or <tt>null</tt> if none matches
+	 */
+	public SimEvent select(int destination, Predicate p) {
+		Mailbox mailbox = mailbox(destination);
+		if (mailbox == null) {
+			return null;
+		}
+		int index = mailbox.indexOf(p);
+		if (index < 0) {
+			return null;
+		}
+		size--;
+		return mailbox.removeAt(index);
+	}
+
+	/**
+	 * Returns an iterator to the events in the queue, mailbox by mailbox in entity id order. Removing
+	 * an event through the iterator takes it out of its mailbox.
+	 *
 	 * @return the iterator
 	 */
 	public Iterator<SimEvent> iterator() {
-		return list.iterator();
+		return new Iterator<SimEvent>() {
+
+			private int entity = -1;
+
+			private int next = 0;
+
+			private int end = 0;
+
+			/** The index of the event last returned, or -1 if there is none to remove. */
+			private int last = -1;
+
+			@Override
+			public boolean hasNext() {
+				while (next >= end && entity + 1 < mailboxes.size()) {
+					Mailbox mailbox = mailboxes.get(++entity);
+					if (mailbox != null) {
+						next = mailbox.head;
+						end = mailbox.tail;
+					}
+				}
+				return next < end;
+			}
+
+			@Override
+			public SimEvent next() {
+				if (!hasNext()) {
+					throw new NoSuchElementException();
+				}
+				last = next;
+				return mailboxes.get(entity).events[next++];
+			}
+
+			@Override
+			public void remove() {
+				if (last < 0) {
+					throw new IllegalStateException();
+				}
+				Mailbox mailbox = mailboxes.get(entity);
+				boolean atHead = last == mailbox.head;
+				mailbox.removeAt(last);
+				size--;
+				last = -1;
+				if (mailbox.size() == 0) {
+					// the mailbox was reset, go on with the next one
+					next = 0;
+					end = 0;
+				} else if (!atHead) {
+					// the later events moved back by one
+					next--;
+					end--;
+				}
+			}
+		};
 	}
 
 	/**
 	 * Returns the size of this event queue.
-	 * 
+	 *
 	 * @return the number of events in the queue.
 	 */
 	public int size() {
-		return list.size();
+		return size;
 	}
 
 	/**
 	 * Clears the queue.
 	 */
 	public void clear() {
-		list.clear();
+		mailboxes.clear();
+		size = 0;
+	}
+
+	/**
+	 * Returns the mailbox of an entity.
+	 *
+	 * @param destination the entity id
+	 * @return the mailbox, or <tt>null</tt> if the entity never had a deferred event
+	 */
+	private Mailbox mailbox(int destination) {
+		return destination >= 0 && destination < mailboxes.size() ? mailboxes.get(destination) : null;
+	}
+
+	/**
+	 * The deferred events of one entity in events[head..tail), in temporal order and, at equal
+	 * times, in the order they were deferred.
+	 */
+	private static final class Mailbox {
+
+		private SimEvent[] events = new SimEvent[4];
+
+		private int head = 0;
+
+		private int tail = 0;
+
+		int size() {
+			return tail - head;
+		}
+
+		void add(SimEvent event) {
+			// The event has to be inserted as the last of all events
+			// with the same event_time(). Yes, this matters.
+			int position = tail;
+			while (position > head && events[position - 1].eventTime() > event.eventTime()) {
+				position--;
+			}
+			if (tail == events.length) {
+				if (head > events.length / 2) {
+					System.arraycopy(events, head, events, 0, tail - head);
+					Arrays.fill(events, tail - head, tail, null);
+					position -= head;
+					tail -= head;
+					head = 0;
+				} else {
+					events = Arrays.copyOf(events, events.length * 2);
+				}
+			}
+			System.arraycopy(events, position, events, position + 1, tail - position);
+			events[position] = event;
+			tail++;
+		}
+
+		int indexOf(Predicate p) {
+			if (head < tail && (p instanceof PredicateAny || p.match(events[head]))) {
+				return head;
+			}
+			for (int i = head + 1; i < tail; i++) {
+				if (p.match(events[i])) {
+					return i;
+				}
+			}
+			return -1;
+		}
+
+		SimEvent removeAt(int index) {
+			SimEvent event = events[index];
+			if (index == head) {
+				events[head++] = null;
+			} else {
+				System.arraycopy(events, index + 1, events, index, tail - index - 1);
+				events[--tail] = null;
+			}
+			if (head == tail) {
+				head = 0;
+				tail = 0;
+			}
+			return event;
+		}
+
 	}
 
-}
\ No newline at end of file
+}
@@ -0,0 +1,167 @@
+/*
+ * Title:        CloudSim Toolkit
+ * Description:  CloudSim (Cloud Simulation) Toolkit for Modeling and Simulation of Clouds
+ * Licence:      GPL - http://www.gnu.org/copyleft/gpl.html
+ *
+ * Copyright (c) 2009-2012, The University of Melbourne, Australia
+ */
+
+package org.cloudbus.cloudsim.core;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.cloudbus.cloudsim.core.predicates.Predicate;
+import org.cloudbus.cloudsim.core.predicates.PredicateType;
+
+/**
+ * Index of the events in the future queue by source entity and tag, used by {@link CloudSim} to
+ * cancel events without scanning the whole queue. The events of one source and tag form a chain,
+ * linked through the events themselves, so indexing an event does not allocate. A source keeps its
+ * chains in a small array, one per tag it has sent.
+ *
+ * @see CloudSim#cancel(int, Predicate)
+ * @see CloudSim#cancelAll(int, Predicate)
+ */
+class FutureEventIndex {
+
+	/** The chains of each source, indexed by source entity id. */
+	private final List<Chain[]> chainsBySource = new ArrayList<Chain[]>();
+
+	/**
+	 * Adds an event that has just been put in the future queue.
+	 *
+	 * @param event the event
+	 */
+	void add(SimEvent event) {
+		Chain chain = chain(event.getSource(), event.getTag());
+		event.indexChain = chain;
+		event.indexPrev = chain.tail;
+		event.indexNext = null;
+		if (chain.tail == null) {
+			chain.head = event;
+		} else {
+			chain.tail.indexNext = event;
+		}
+		chain.tail = event;
+	}
+
+	/**
+	 * Removes an event that has left the future queue.
+	 *
+	 * @param event the event
+	 */
+	void remove(SimEvent event) {
+		Chain chain = event.indexChain;
+		if (chain == null) {
+			return;
+		}
+		if (event.indexPrev == null) {
+			chain.head = event.indexNext;
+		} else {
+			event.indexPrev.indexNext = event.indexNext;
+		}
+		if (event.indexNext == null) {
+			chain.tail = event.indexPrev;
+		} else {
+			event.indexNext.indexPrev = event.indexPrev;
+		}
+		event.indexChain = null;
+		event.indexPrev = null;
+		event.indexNext = null;
+	}
+
+	/**
+	 * Finds the events of a source matching a predicate. Only the chains of the predicate's tags
+	 * are visited when it is a {@link PredicateType}.
+	 *
+	 * @param src the source entity id
+	 * @param p the predicate
+	 * @param firstOnly whether to return only the earliest matching event
+	 * @return the matching events
+	 */
+	List<SimEvent> find(int src, Predicate p, boolean firstOnly) {
+		List<SimEvent> matches = new ArrayList<SimEvent>();
+		Chain[] chains = src >= 0 && src < chainsBySource.size() ? chainsBySource.get(src) : null;
+		if (chains == null) {
+			return matches;
+		}
+		PredicateType byType = p instanceof PredicateType ? (PredicateType) p : null;
+		SimEvent first = null;
+		for (Chain chain : chains) {
+			if (chain == null || (byType != null && !byType.matchesTag(chain.tag))) {
+				continue;
+			}
+			for (SimEvent event = chain.head; event != null; event = event.indexNext) {
+				if (event.getSource() != src || !p.match(event)) {
+					continue;
+				}
+				if (!firstOnly) {
+					matches.add(event);
+				} else if (first == null || event.compareTo(first) < 0) {
+					first = event;
+				}
+			}
+		}
+		if (first != null) {
+			matches.add(first);
+		}
+		return matches;
+	}
+
+	/**
+	 * Returns the chain of a source and tag, creating it on first use.
+	 *
+	 * @param src the source entity id
+	 * @param tag the tag
+	 * @return the chain
+	 */
+	private Chain chain(int src, int tag) {
+		// events without a source, such as entity creation, share the chains of slot 0
+		int slot = Math.max(src, 0);
+		while (chainsBySource.size() <= slot) {
+			chainsBySource.add(null);
+		}
+		Chain[] chains = chainsBySource.get(slot);
+		if (chains == null) {
+			chains = new Chain[4];
+			chainsBySource.set(slot, chains);
+		}
+		int free = -1;
+		for (int i = 0; i < chains.length; i++) {
+			if (chains[i] == null) {
+				if (free < 0) {
+					free = i;
+				}
+			} else if (chains[i].tag == tag) {
+				return chains[i];
+			}
+		}
+		if (free < 0) {
+			free = chains.length;
+			chains = Arrays.copyOf(chains, chains.length * 2);
+			chainsBySource.set(slot, chains);
+		}
+		chains[free] = new Chain(tag);
+		return chains[free];
+	}
+
+	/**
+	 * The events of one source and tag in the future queue, in the order they were scheduled.
+	 */
+	static final class Chain {
+
+		private final int tag;
+
+		private SimEvent head;
+
+		private SimEvent tail;
+
+		Chain(int tag) {
+			this.tag = tag;
+		}
+
+	}
+
+}
@@ -0,0 +1,112 @@
+/*
+ * Title:        CloudSim Toolkit
+ * Description:  CloudSim (Cloud Simulation) Toolkit for Modeling and Simulation of Clouds
+ * Licence:      GPL - http://www.gnu.org/copyleft/gpl.html
+ *
+ * Copyright (c) 2009-2012, The University of Melbourne, Australia
+ */
+
+package org.cloudbus.cloudsim.core;
+
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.List;
+
+/**
+ * The future event queue used by {@link CloudSim}. Events leave the queue in the order of their
+ * time and then of their serial number, which the queue assigns when the event is added: events
+ * added with {@link #addEventFirst(SimEvent)} come before all events added with
+ * {@link #addEvent(SimEvent)} at the same time, and events added the same way keep the order in
+ * which they were added.
+ * <p>
+ * A queue is selected with {@link CloudSim#init(int, java.util.Calendar, boolean, FutureEventQueue)};
+ * {@link FutureQueue} is the default.
+ *
+ * @see FutureQueue
+ * @see HeapFutureQueue
+ * @see CalendarFutureQueue
+ */
+public interface FutureEventQueue {
+
+	/**
+	 * Adds a new event after all events at the same time.
+	 *
+	 * @param newEvent the event to be put in the queue
+	 * @pre newEvent != null
+	 * @post $none
+	 */
+	void addEvent(SimEvent newEvent);
+
+	/**
+	 * Adds a new event before all events at the same time that were added with
+	 * {@link #addEvent(SimEvent)}.
+	 *
+	 * @param newEvent the event to be put in the queue
+	 * @pre newEvent != null
+	 * @post $none
+	 */
+	void addEventFirst(SimEvent newEvent);
+
+	/**
+	 * Returns the first event of the queue without removing it.
+	 *
+	 * @return the first event, or <tt>null</tt> if the queue is empty
+	 */
+	SimEvent peek();
+
+	/**
+	 * Removes and returns the first event of the queue.
+	 *
+	 * @return the first event, or <tt>null</tt> if the queue is empty
+	 */
+	SimEvent poll();
+
+	/**
+	 * Removes all events at the time of the first event and appends them to a list, in queue
+	 * order. This drains a burst of simultaneous events in one pass over the queue.
+	 *
+	 * @param batch the list receiving the events
+	 * @return the number of events removed, 0 if the queue is empty
+	 * @pre batch != null
+	 * @post $none
+	 */
+	int pollBatch(List<SimEvent> batch);
+
+	/**
+	 * Returns an iterator over the events in the queue. The order of iteration is only guaranteed
+	 * to be the queue order by {@link FutureQueue}, and the iterator need not support removal; use
+	 * {@link #remove(SimEvent)} instead.
+	 *
+	 * @return the iterator
+	 */
+	Iterator<SimEvent> iterator();
+
+	/**
+	 * Returns the number of events in the queue.
+	 *
+	 * @return the size
+	 */
+	int size();
+
+	/**
+	 * Removes the event from the queue.
+	 *
+	 * @param event the event
+	 * @return true, if the event was in the queue
+	 */
+	boolean remove(SimEvent event);
+
+	/**
+	 * Removes all the given events from the queue.
+	 *
+	 * @param events the events
+	 * @return true, if at least one event was in the queue
+	 */
+	boolean removeAll(Collection<SimEvent> events);
+
+	/**
+	 * Removes all events from the queue.
+	 */
+	void clear();
+
+}
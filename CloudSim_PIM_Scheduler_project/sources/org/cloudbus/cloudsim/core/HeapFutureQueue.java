@@ -0,0 +1,294 @@
+/*
+ * Title:        CloudSim Toolkit
+ * Description:  CloudSim (Cloud Simulation) Toolkit for Modeling and Simulation of Clouds
+ * Licence:      GPL - http://www.gnu.org/copyleft/gpl.html
+ *
+ * Copyright (c) 2009-2012, The University of Melbourne, Australia
+ */
+
+package org.cloudbus.cloudsim.core;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Set;
+
+/**
+ * A {@link FutureEventQueue} kept as a 4-ary min-heap in an array. Adding and polling events take
+ * O(log n) without allocating per event, and the wide nodes keep the heap shallow and the children
+ * of a node in one cache line. Removing an arbitrary event takes O(n) to find it.
+ * <p>
+ * The iterator returns the events in array order, not in queue order, and does not support removal.
+ *
+ * @see FutureEventQueue
+ */
+public class HeapFutureQueue implements FutureEventQueue {
+
+	/** Number of children of each heap node. */
+	private static final int ARITY = 4;
+
+	/** Bursts larger than this fraction of the heap are drained by rebuilding it. */
+	private static final int BURST_FRACTION = 8;
+
+	/** The initial capacity. */
+	private static final int INITIAL_CAPACITY = 64;
+
+	/** The heap. */
+	private SimEvent[] heap = new SimEvent[INITIAL_CAPACITY];
+
+	/** The number of events in the heap. */
+	private int size = 0;
+
+	/** The serial. */
+	private long serial = 0;
+
+	/** The serial of events added to the head, below every serial given by addEvent. */
+	private long firstSerial = Long.MIN_VALUE;
+
+	@Override
+	public void addEvent(SimEvent newEvent) {
+		newEvent.setSerial(serial++);
+		insert(newEvent);
+	}
+
+	@Override
+	public void addEventFirst(SimEvent newEvent) {
+		newEvent.setSerial(firstSerial++);
+		insert(newEvent);
+	}
+
+	@Override
+	public SimEvent peek() {
+		return size == 0 ? null : heap[0];
+	}
+
+	@Override
+	public SimEvent poll() {
+		if (size == 0) {
+			return null;
+		}
+		SimEvent first = heap[0];
+		removeAt(0);
+		return first;
+	}
+
+	/**
+	 * Counts the simultaneous events first. A small burst is polled one event at a time; a burst of
+	 * more than 1/{@value #BURST_FRACTION} of the heap is moved out in one pass, sorted, and the rest
+	 * of the heap is rebuilt in linear time.
+	 */
+	@Override
+	public int pollBatch(List<SimEvent> batch) {
+		if (size == 0) {
+			return 0;
+		}
+		double time = heap[0].eventTime();
+		int count = countAt(0, time);
+		if (count * BURST_FRACTION <= size) {
+			for (int i = 0; i < count; i++) {
+				batch.add(heap[0]);
+				removeAt(0);
+			}
+			return count;
+		}
+
+		SimEvent[] burst = new SimEvent[count];
+		int taken = 0;
+		int kept = 0;
+		for (int i = 0; i < size; i++) {
+			if (heap[i].eventTime() == time) {
+				burst[taken++] = heap[i];
+			} else {
+				heap[kept++] = heap[i];
+			}
+		}
+		Arrays.fill(heap, kept, size, null);
+		size = kept;
+		for (int i = (size - 2) / ARITY; i >= 0; i--) {
+			siftDown(i);
+		}
+		Arrays.sort(burst);
+		batch.addAll(Arrays.asList(burst));
+		return count;
+	}
+
+	@Override
+	public Iterator<SimEvent> iterator() {
+		return new Iterator<SimEvent>() {
+
+			private int next = 0;
+
+			@Override
+			public boolean hasNext() {
+				return next < size;
+			}
+
+			@Override
+			public SimEvent next() {
+				if (next >= size) {
+					throw new NoSuchElementException();
+				}
+				return heap[next++];
+			}
+
+			@Override
+			public void remove() {
+				throw new UnsupportedOperationException("Use HeapFutureQueue.remove(SimEvent)");
+			}
+		};
+	}
+
+	@Override
+	public int size() {
+		return size;
+	}
+
+	@Override
+	public boolean remove(SimEvent event) {
+		for (int i = 0; i < size; i++) {
+			if (heap[i] == event) {
+				removeAt(i);
+				return true;
+			}
+		}
+		return false;
+	}
+
+	/**
+	 * Removes all the given events in one pass over the heap and then rebuilds it.
+	 *
+	 * @param events the events
+	 * @return true, if at least one event was in the queue
+	 */
+	@Override
+	public boolean removeAll(Collection<SimEvent> events) {
+		if (events.isEmpty()) {
+			return false;
+		}
+		Set<SimEvent> doomed = Collections.newSetFromMap(new IdentityHashMap<SimEvent, Boolean>());
+		doomed.addAll(events);
+		int kept = 0;
+		for (int i = 0; i < size; i++) {
+			if (!doomed.contains(heap[i])) {
+				heap[kept++] = heap[i];
+			}
+		}
+		if (kept == size) {
+			return false;
+		}
+		Arrays.fill(heap, kept, size, null);
+		size = kept;
+		for (int i = (size - 2) / ARITY; i >= 0; i--) {
+			siftDown(i);
+		}
+		return true;
+	}
+
+	@Override
+	public void clear() {
+		Arrays.fill(heap, 0, size, null);
+		size = 0;
+	}
+
+	/**
+	 * Appends the event and moves it up to its place.
+	 *
+	 * @param event the event
+	 */
+	private void insert(SimEvent event) {
+		if (size == heap.length) {
+			heap = Arrays.copyOf(heap, size * 2);
+		}
+		heap[size] = event;
+		siftUp(size++);
+	}
+
+	/**
+	 * Removes the event at a heap index, filling the hole with the last event.
+	 *
+	 * @param index the index
+	 */
+	private void removeAt(int index) {
+		size--;
+		SimEvent last = heap[size];
+		heap[size] = null;
+		if (index < size) {
+			heap[index] = last;
+			siftDown(index);
+			if (heap[index] == last) {
+				siftUp(index);
+			}
+		}
+	}
+
+	/**
+	 * Counts the events at a time in the subtree of a node, skipping subtrees that start later.
+	 *
+	 * @param index the node
+	 * @param time the time, no later than the node's event
+	 * @return the count
+	 */
+	private int countAt(int index, double time) {
+		int count = 0;
+		int[] stack = new int[16];
+		int top = 0;
+		stack[top++] = index;
+		while (top > 0) {
+			int node = stack[--top];
+			if (heap[node].eventTime() != time) {
+				continue;
+			}
+			count++;
+			int firstChild = node * ARITY + 1;
+			int lastChild = Math.min(firstChild + ARITY, size);
+			for (int child = firstChild; child < lastChild; child++) {
+				if (top == stack.length) {
+					stack = Arrays.copyOf(stack, top * 2);
+				}
+				stack[top++] = child;
+			}
+		}
+		return count;
+	}
+
+	private void siftUp(int index) {
+		SimEvent event = heap[index];
+		while (index > 0) {
+			int parent = (index - 1) / ARITY;
+			if (heap[parent].compareTo(event) <= 0) {
+				break;
+			}
+			heap[index] = heap[parent];
+			index = parent;
+		}
+		heap[index] = event;
+	}
+
+	private void siftDown(int index) {
+		SimEvent event = heap[index];
+		while (true) {
+			int firstChild = index * ARITY + 1;
+			if (firstChild >= size) {
+				break;
+			}
+			int smallest = firstChild;
+			int lastChild = Math.min(firstChild + ARITY, size);
+			for (int child = firstChild + 1; child < lastChild; child++) {
+				if (heap[child].compareTo(heap[smallest]) < 0) {
+					smallest = child;
+				}
+			}
+			if (event.compareTo(heap[smallest]) <= 0) {
+				break;
+			}
+			heap[index] = heap[smallest];
+			index = smallest;
+		}
+		heap[index] = event;
+	}
+
+}
@@ -345,13 +345,7 @@ public abstract class SimEntity implements Cloneable {
 	 * @return the simulation event
 	 */
 	public SimEvent getNextEvent(Predicate p) {
-		if (!CloudSim.running()) {
-			return null;
-		}
-		if (numEventsWaiting(p) > 0) {
-			return selectEvent(p);
-		}
-		return null;
+		return selectEvent(p);
 	}
 
 	/**
@@ -475,12 +469,15 @@ public abstract class SimEntity implements Cloneable {
 	public static final int FINISHED = 3;
 
 	/**
-	 * Sets the state.
+	 * Sets the state. An entity made runnable is run in the next clock tick.
 	 * 
 	 * @param state the new state
 	 */
 	protected void setState(int state) {
 		this.state = state;
+		if (state == RUNNABLE) {
+			CloudSim.activate(id);
+		}
 	}
 
 	/**
@@ -40,6 +40,16 @@ public class SimEvent implements Cloneable, Comparable<SimEvent> {
 
 	private long serial = -1;
 
+	/** whether the event was cancelled while in the future queue **/
+	boolean cancelled;
+
+	/** the chain of the future event index holding the event, and its neighbours there **/
+	FutureEventIndex.Chain indexChain;
+
+	SimEvent indexPrev;
+
+	SimEvent indexNext;
+
 	// Internal event types
 
 	public static final int ENULL = 0;
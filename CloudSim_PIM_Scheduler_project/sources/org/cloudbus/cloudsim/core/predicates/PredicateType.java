@@ -41,6 +41,31 @@ public class PredicateType extends Predicate {
 		this.tags = tags.clone();
 	}
 
+	/**
+	 * Gets the tags this predicate selects.
+	 * 
+	 * @return a copy of the tags
+	 */
+	public int[] getTags() {
+		return tags.clone();
+	}
+
+	/**
+	 * Checks whether this predicate selects a tag, without copying the tags. The kernel uses it to
+	 * pick the events to cancel by tag.
+	 * 
+	 * @param tag the tag
+	 * @return true, if events with the tag match
+	 */
+	public boolean matchesTag(int tag) {
+		for (int t : tags) {
+			if (t == tag) {
+				return true;
+			}
+		}
+		return false;
+	}
+
 	/**
 	 * The match function called by <code>Sim_system</code>, not used directly by the user.
 	 * 
@@ -49,13 +74,7 @@ public class PredicateType extends Predicate {
 	 */
 	@Override
 	public boolean match(SimEvent ev) {
-		int tag = ev.getTag();
-		for (int tag2 : tags) {
-			if (tag == tag2) {
-				return true;
-			}
-		}
-		return false;
+		return matchesTag(ev.getTag());
 	}
 
 }
@@ -52,7 +52,7 @@ public class HostList {
 	public static <T extends Host> int getNumberOfPes(List<T> hostList) {
 		int numberOfPes = 0;
 		for (T host : hostList) {
-			numberOfPes += host.getPeList().size();
+			numberOfPes += host.getNumberOfPes();
 		}
 		return numberOfPes;
 	}
@@ -57,6 +57,22 @@ public class PeList {
 		return -1;
 	}
 
+	/**
+	 * Gets the number of cores in the list, counting every core of a Pe that stands for a group.
+	 *
+	 * @param peList the pe list
+	 * @return the number of cores
+	 * @pre $none
+	 * @post $result >= 0
+	 */
+	public static <T extends Pe> int getNumberOfPes(List<T> peList) {
+		int cnt = 0;
+		for (Pe pe : peList) {
+			cnt += pe.getNumberOfCores();
+		}
+		return cnt;
+	}
+
 	/**
 	 * Gets total MIPS Rating for all PEs.
 	 * 
@@ -68,7 +84,7 @@ public class PeList {
 	public static <T extends Pe> int getTotalMips(List<T> peList) {
 		int totalMips = 0;
 		for (Pe pe : peList) {
-			totalMips += pe.getMips();
+			totalMips += pe.getMips() * pe.getNumberOfCores();
 		}
 		return totalMips;
 	}
@@ -139,9 +155,7 @@ public class PeList {
 	public static <T extends Pe> int getNumberOfFreePes(List<T> peList) {
 		int cnt = 0;
 		for (Pe pe : peList) {
-			if (pe.getStatus() == Pe.FREE) {
-				cnt++;
-			}
+			cnt += pe.getNumberOfFreeCores();
 		}
 		return cnt;
 	}
@@ -177,9 +191,7 @@ public class PeList {
 	public static <T extends Pe> int getNumberOfBusyPes(List<T> peList) {
 		int cnt = 0;
 		for (Pe pe : peList) {
-			if (pe.getStatus() == Pe.BUSY) {
-				cnt++;
-			}
+			cnt += pe.getNumberOfBusyCores();
 		}
 		return cnt;
 	}
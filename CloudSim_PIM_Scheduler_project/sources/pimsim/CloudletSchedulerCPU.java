@@ -0,0 +1,34 @@
+package pimsim;
+
+/**
+ * Cloudlet scheduler for CPU VMs that charges for moving a cloudlet's data between memory and the
+ * processor. The data movement does not overlap with computation:
+ * time = length / mips + traffic / memoryBandwidth.
+ */
+public class CloudletSchedulerCPU extends CloudletSchedulerMemoryBound {
+
+    public static final double DEFAULT_MEMORY_BANDWIDTH = 10000.0; // MB/s
+
+    private final double memoryBandwidth;
+
+    public CloudletSchedulerCPU() {
+        this(DEFAULT_MEMORY_BANDWIDTH);
+    }
+
+    public CloudletSchedulerCPU(double memoryBandwidth) {
+        this.memoryBandwidth = memoryBandwidth;
+    }
+
+    @Override
+    public double getExecutionRate(long length, double traffic, double capacity) {
+        if (traffic <= 0) {
+            return capacity;
+        }
+        double time = length / capacity + traffic / memoryBandwidth;
+        return length / time;
+    }
+
+    public double getMemoryBandwidth() {
+        return memoryBandwidth;
+    }
+}
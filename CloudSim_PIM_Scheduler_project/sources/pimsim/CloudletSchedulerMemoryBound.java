@@ -0,0 +1,151 @@
+package pimsim;
+
+import java.util.ArrayList;
+import java.util.List;
+import org.cloudbus.cloudsim.Cloudlet;
+import org.cloudbus.cloudsim.CloudletSchedulerSpaceShared;
+import org.cloudbus.cloudsim.Consts;
+import org.cloudbus.cloudsim.ResCloudlet;
+import org.cloudbus.cloudsim.core.CloudSim;
+
+/**
+ * Space-shared cloudlet scheduler in which a cloudlet progresses at an execution rate that depends
+ * on its memory traffic, rather than always at the full MIPS of its PEs. Subclasses define the
+ * memory system through {@link #getExecutionRate(long, double, double)}. When the VM's host shares
+ * its memory channels through a {@link MemoryChannelModel}, cloudlets with memory traffic are further
+ * slowed by the contention factor the model sets.
+ */
+public abstract class CloudletSchedulerMemoryBound extends CloudletSchedulerSpaceShared {
+
+    private double contentionFactor = 1.0;
+
+    /**
+     * Effective MIPS per PE at which work of the given length and memory traffic (in MB) progresses
+     * on PEs of the given capacity. Also used to estimate run times before a cloudlet exists.
+     */
+    public abstract double getExecutionRate(long length, double traffic, double capacity);
+
+    /**
+     * Effective MIPS per PE at which the cloudlet progresses on PEs of the given capacity.
+     */
+    protected double getExecutionRate(Cloudlet cloudlet, double capacity) {
+        double traffic = PimCloudlet.memoryTrafficOf(cloudlet);
+        double rate = getExecutionRate(cloudlet.getCloudletLength(), traffic, capacity);
+        return traffic > 0 ? rate * contentionFactor : rate;
+    }
+
+    /**
+     * Memory bandwidth in MB/s the running cloudlets would draw at their uncontended rates.
+     */
+    public double getMemoryDemand() {
+        double capacity = 0.0;
+        int cpus = 0;
+        if (getCurrentMipsShare() != null) {
+            for (Double mips : getCurrentMipsShare()) {
+                capacity += mips;
+                if (mips > 0) {
+                    cpus++;
+                }
+            }
+        }
+        if (cpus == 0) {
+            return 0.0;
+        }
+        capacity /= cpus;
+
+        double demand = 0.0;
+        for (ResCloudlet rcl : getCloudletExecList()) {
+            Cloudlet cloudlet = rcl.getCloudlet();
+            double traffic = PimCloudlet.memoryTrafficOf(cloudlet);
+            if (traffic > 0) {
+                long length = cloudlet.getCloudletLength();
+                demand += getExecutionRate(length, traffic, capacity) * rcl.getNumberOfPes() * traffic / length;
+            }
+        }
+        return demand;
+    }
+
+    /**
+     * Sets the share of their uncontended speed at which cloudlets with memory traffic run.
+     */
+    public void setContentionFactor(double contentionFactor) {
+        this.contentionFactor = contentionFactor;
+    }
+
+    public double getContentionFactor() {
+        return contentionFactor;
+    }
+
+    @Override
+    public double updateVmProcessing(double currentTime, List<Double> mipsShare) {
+        setCurrentMipsShare(mipsShare);
+        double timeSpan = currentTime - getPreviousTime(); // time since last update
+        double capacity = 0.0;
+        int cpus = 0;
+
+        for (Double mips : mipsShare) { // count the CPUs available to the VMM
+            capacity += mips;
+            if (mips > 0) {
+                cpus++;
+            }
+        }
+        currentCpus = cpus;
+        capacity /= cpus; // average capacity of each cpu
+
+        for (ResCloudlet rcl : getCloudletExecList()) {
+            double rate = getExecutionRate(rcl.getCloudlet(), capacity);
+            rcl.updateCloudletFinishedSoFar((long) (rate * timeSpan * rcl.getNumberOfPes() * Consts.MILLION));
+        }
+
+        // no more cloudlets in this scheduler
+        if (getCloudletExecList().size() == 0 && getCloudletWaitingList().size() == 0) {
+            setPreviousTime(currentTime);
+            return 0.0;
+        }
+
+        int finished = 0;
+        List<ResCloudlet> toRemove = new ArrayList<ResCloudlet>();
+        for (ResCloudlet rcl : getCloudletExecList()) {
+            if (rcl.getRemainingCloudletLength() == 0) {
+                toRemove.add(rcl);
+                cloudletFinish(rcl);
+                finished++;
+            }
+        }
+        getCloudletExecList().removeAll(toRemove);
+
+        // for each finished cloudlet, add a new one from the waiting list
+        for (int i = 0; i < finished && !getCloudletWaitingList().isEmpty(); i++) {
+            toRemove.clear();
+            for (ResCloudlet rcl : getCloudletWaitingList()) {
+                if ((currentCpus - usedPes) >= rcl.getNumberOfPes()) {
+                    rcl.setCloudletStatus(Cloudlet.INEXEC);
+                    for (int k = 0; k < rcl.getNumberOfPes(); k++) {
+                        rcl.setMachineAndPeId(0, i);
+                    }
+                    getCloudletExecList().add(rcl);
+                    usedPes += rcl.getNumberOfPes();
+                    toRemove.add(rcl);
+                    break;
+                }
+            }
+            getCloudletWaitingList().removeAll(toRemove);
+        }
+
+        // estimate finish time of cloudlets in the execution queue
+        double nextEvent = Double.MAX_VALUE;
+        for (ResCloudlet rcl : getCloudletExecList()) {
+            double rate = getExecutionRate(rcl.getCloudlet(), capacity);
+            double estimatedFinishTime = currentTime
+                    + (rcl.getRemainingCloudletLength() / (rate * rcl.getNumberOfPes()));
+            if (estimatedFinishTime - currentTime < CloudSim.getMinTimeBetweenEvents()) {
+                estimatedFinishTime = currentTime + CloudSim.getMinTimeBetweenEvents();
+            }
+            if (estimatedFinishTime < nextEvent) {
+                nextEvent = estimatedFinishTime;
+            }
+        }
+        setPreviousTime(currentTime);
+        return nextEvent;
+    }
+}
@@ -0,0 +1,98 @@
+package pimsim;
+
+/**
+ * Cloudlet scheduler for PIM VMs. Data stays in the memory banks, so a cloudlet streams its traffic
+ * through all banks in parallel and runs at the lower of its compute rate and its bandwidth-bound
+ * rate (a roofline model): rate = min(mips, length * banks * bankBandwidth / traffic).
+ *
+ * When the VM is placed on a host with a {@link RamProvisionerBanked}, the bank count and per-bank
+ * figures come from the banks actually granted to the VM, and the compute rate is further capped
+ * at banks * bankMips. Otherwise the values given to the constructor apply.
+ *
+ * Each cloudlet also pays a fixed launch overhead (kernel launch and host-to-PIM transfer setup)
+ * before it starts streaming, so many tiny cloudlets run slower than one cloudlet of their combined
+ * length.
+ */
+public class CloudletSchedulerPIM extends CloudletSchedulerMemoryBound {
+
+    public static final int DEFAULT_BANKS = 64;
+    public static final double DEFAULT_BANK_BANDWIDTH = 1000.0; // MB/s per bank
+    public static final double DEFAULT_LAUNCH_OVERHEAD = 0.0; // seconds per cloudlet
+
+    private final int configuredBanks;
+    private final double configuredBankBandwidth;
+    private final double launchOverhead;
+
+    private int banks;
+    private double bankBandwidth;
+    private double bankMips; // 0 while no banks are granted: compute is bound by the PEs only
+
+    public CloudletSchedulerPIM() {
+        this(DEFAULT_BANKS, DEFAULT_BANK_BANDWIDTH);
+    }
+
+    public CloudletSchedulerPIM(int banks, double bankBandwidth) {
+        this(banks, bankBandwidth, DEFAULT_LAUNCH_OVERHEAD);
+    }
+
+    /**
+     * @param launchOverhead seconds each cloudlet spends being launched before it makes progress
+     */
+    public CloudletSchedulerPIM(int banks, double bankBandwidth, double launchOverhead) {
+        this.configuredBanks = banks;
+        this.configuredBankBandwidth = bankBandwidth;
+        this.launchOverhead = launchOverhead;
+        releaseBanks();
+    }
+
+    @Override
+    public double getExecutionRate(long length, double traffic, double capacity) {
+        double rate = bankMips > 0 ? Math.min(capacity, banks * bankMips) : capacity;
+        if (traffic > 0) {
+            rate = Math.min(rate, length * getBandwidth() / traffic);
+        }
+        if (launchOverhead > 0 && length > 0) {
+            rate = length / (launchOverhead + length / rate);
+        }
+        return rate;
+    }
+
+    /**
+     * Called by {@link RamProvisionerBanked} when the VM is granted its banks.
+     */
+    public void assignBanks(int banks, double bankMips, double bankBandwidth) {
+        this.banks = banks;
+        this.bankMips = bankMips;
+        this.bankBandwidth = bankBandwidth;
+    }
+
+    /**
+     * Falls back to the constructor values once the VM no longer holds banks.
+     */
+    public void releaseBanks() {
+        this.banks = configuredBanks;
+        this.bankMips = 0;
+        this.bankBandwidth = configuredBankBandwidth;
+    }
+
+    /** Aggregate internal bandwidth of all banks, in MB/s. */
+    public double getBandwidth() {
+        return banks * bankBandwidth;
+    }
+
+    public int getBanks() {
+        return banks;
+    }
+
+    public double getBankBandwidth() {
+        return bankBandwidth;
+    }
+
+    public double getBankMips() {
+        return bankMips;
+    }
+
+    public double getLaunchOverhead() {
+        return launchOverhead;
+    }
+}
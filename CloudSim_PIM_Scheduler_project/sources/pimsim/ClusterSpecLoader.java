@@ -0,0 +1,215 @@
+package pimsim;
+
+import java.io.FileReader;
+import java.io.IOException;
+import java.io.Reader;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import org.cloudbus.cloudsim.Host;
+import org.cloudbus.cloudsim.Pe;
+import org.cloudbus.cloudsim.VmSchedulerTimeShared;
+import org.cloudbus.cloudsim.power.models.PowerModel;
+import org.cloudbus.cloudsim.power.models.PowerModelCubic;
+import org.cloudbus.cloudsim.power.models.PowerModelLinear;
+import org.cloudbus.cloudsim.power.models.PowerModelSqrt;
+import org.cloudbus.cloudsim.power.models.PowerModelSquare;
+import org.cloudbus.cloudsim.provisioners.BwProvisionerSimple;
+import org.cloudbus.cloudsim.provisioners.PeProvisionerSimple;
+import org.cloudbus.cloudsim.provisioners.RamProvisioner;
+import org.cloudbus.cloudsim.provisioners.RamProvisionerSimple;
+
+/**
+ * Builds the hosts of a heterogeneous cluster from a properties file listing host classes:
+ *
+ * <pre>
+ * host.classes=cpu-high,pim-dimm
+ * host.cpu-high.type=CPU
+ * host.cpu-high.count=40000
+ * host.cpu-high.mips=12000
+ * host.cpu-high.ram=16384
+ * host.pim-dimm.type=PIM
+ * host.pim-dimm.count=60000
+ * host.pim-dimm.cores=2560
+ * host.pim-dimm.mips=350
+ * host.pim-dimm.ram=32768
+ * host.pim-dimm.power.max=120
+ * host.pim-dimm.power.idle=80
+ * </pre>
+ *
+ * Per class: type (CPU or PIM, required), count (default 1; 0 leaves the class out), cores
+ * (default 1), mips per core and ram in MB (required), bw (default 10000), storage in MB (default
+ * 1000000), power.model (linear, square, cubic or sqrt; default linear), power.max and power.idle in
+ * watts (default 250/200 for CPU, 120/80 for PIM). PIM classes may also set bank.size, bank.mips
+ * and bank.bandwidth for their {@link RamProvisionerBanked}, and memory.bandwidth in MB/s to give
+ * each host a {@link MemoryChannelModel} shared by its VMs.
+ *
+ * Hosts are numbered from 0 in class order. Every host of a class shares one power model, and hosts
+ * of different classes share it too when the model parameters match, so the power tables built from
+ * these models are shared as well. Multi-core classes get a single {@link PeGroup} per host. Only
+ * provisioners and schedulers, which hold per-host state, are created for each host.
+ */
+public class ClusterSpecLoader {
+
+    private static final String PREFIX = "host.";
+
+    private final Map<String, PowerModel> powerModels = new HashMap<>();
+
+    public List<Host> load(String fileName) throws IOException {
+        try (Reader reader = new FileReader(fileName)) {
+            return load(reader);
+        }
+    }
+
+    public List<Host> load(Reader reader) throws IOException {
+        Properties spec = new Properties();
+        spec.load(reader);
+        return load(spec);
+    }
+
+    public List<Host> load(Properties spec) {
+        String classes = spec.getProperty(PREFIX + "classes");
+        if (classes == null || classes.trim().isEmpty()) {
+            throw new IllegalArgumentException("Cluster spec lists no host classes");
+        }
+
+        List<HostClass> hostClasses = new ArrayList<>();
+        int total = 0;
+        for (String name : classes.split(",")) {
+            HostClass hostClass = parseClass(spec, name.trim());
+            hostClasses.add(hostClass);
+            total += hostClass.count;
+        }
+
+        List<Host> hosts = new ArrayList<>(total);
+        for (HostClass hostClass : hostClasses) {
+            for (int i = 0; i < hostClass.count; i++) {
+                hosts.add(hostClass.create(hosts.size()));
+            }
+        }
+        return hosts;
+    }
+
+    private HostClass parseClass(Properties spec, String name) {
+        String key = PREFIX + name + ".";
+        String typeName = spec.getProperty(key + "type");
+        if (typeName == null) {
+            throw new IllegalArgumentException("Host class " + name + " has no type");
+        }
+        ExecutionType type = ExecutionType.valueOf(typeName.trim().toUpperCase());
+        boolean pim = type == ExecutionType.PIM;
+
+        HostClass hostClass = new HostClass(type);
+        hostClass.count = intValue(spec, key + "count", 1);
+        hostClass.cores = intValue(spec, key + "cores", 1);
+        hostClass.mips = intValue(spec, key + "mips", -1);
+        hostClass.ram = intValue(spec, key + "ram", -1);
+        hostClass.bw = intValue(spec, key + "bw", 10000);
+        hostClass.storage = longValue(spec, key + "storage", 1_000_000);
+        if (hostClass.mips <= 0 || hostClass.ram <= 0 || hostClass.cores <= 0 || hostClass.count < 0) {
+            throw new IllegalArgumentException("Host class " + name
+                    + " needs positive mips, ram and cores and a non-negative count");
+        }
+
+        hostClass.bankSize = intValue(spec, key + "bank.size", RamProvisionerBanked.DEFAULT_BANK_SIZE);
+        hostClass.bankMips = doubleValue(spec, key + "bank.mips", RamProvisionerBanked.DEFAULT_BANK_MIPS);
+        hostClass.bankBandwidth = doubleValue(spec, key + "bank.bandwidth",
+                CloudletSchedulerPIM.DEFAULT_BANK_BANDWIDTH);
+        hostClass.memoryBandwidth = doubleValue(spec, key + "memory.bandwidth", 0.0);
+
+        String model = spec.getProperty(key + "power.model", "linear").trim().toLowerCase();
+        double maxPower = doubleValue(spec, key + "power.max", pim ? 120 : 250);
+        double idlePower = doubleValue(spec, key + "power.idle", pim ? 80 : 200);
+        hostClass.powerModel = powerModel(model, maxPower, idlePower);
+        return hostClass;
+    }
+
+    /**
+     * Returns the shared power model for these parameters, creating it on first use.
+     */
+    private PowerModel powerModel(String model, double maxPower, double idlePower) {
+        String key = model + ":" + maxPower + ":" + idlePower;
+        PowerModel powerModel = powerModels.get(key);
+        if (powerModel == null) {
+            double staticPowerPercent = idlePower / maxPower;
+            switch (model) {
+                case "linear":
+                    powerModel = new PowerModelLinear(maxPower, staticPowerPercent);
+                    break;
+                case "square":
+                    powerModel = new PowerModelSquare(maxPower, staticPowerPercent);
+                    break;
+                case "cubic":
+                    powerModel = new PowerModelCubic(maxPower, staticPowerPercent);
+                    break;
+                case "sqrt":
+                    powerModel = new PowerModelSqrt(maxPower, staticPowerPercent);
+                    break;
+                default:
+                    throw new IllegalArgumentException("Unknown power model: " + model);
+            }
+            powerModels.put(key, powerModel);
+        }
+        return powerModel;
+    }
+
+    private static int intValue(Properties spec, String key, int defaultValue) {
+        String value = spec.getProperty(key);
+        return value == null ? defaultValue : Integer.parseInt(value.trim());
+    }
+
+    private static long longValue(Properties spec, String key, long defaultValue) {
+        String value = spec.getProperty(key);
+        return value == null ? defaultValue : Long.parseLong(value.trim());
+    }
+
+    private static double doubleValue(Properties spec, String key, double defaultValue) {
+        String value = spec.getProperty(key);
+        return value == null ? defaultValue : Double.parseDouble(value.trim());
+    }
+
+    /**
+     * The description shared by all hosts of one class. It is filled in by parseClass and only read
+     * once the spec has been parsed.
+     */
+    private static class HostClass {
+        final ExecutionType type;
+        int count;
+        int cores;
+        int mips;
+        int ram;
+        int bw;
+        long storage;
+        int bankSize;
+        double bankMips;
+        double bankBandwidth;
+        double memoryBandwidth;
+        PowerModel powerModel;
+
+        HostClass(ExecutionType type) {
+            this.type = type;
+        }
+
+        Host create(int id) {
+            List<Pe> peList = new ArrayList<>(1);
+            peList.add(cores == 1
+                    ? new Pe(0, new PeProvisionerSimple(mips))
+                    : new PeGroup(0, cores, mips));
+
+            if (type == ExecutionType.PIM) {
+                RamProvisioner ramProvisioner =
+                        new RamProvisionerBanked(ram / bankSize, bankSize, bankMips, bankBandwidth);
+                PimHost host = new PimHost(id, ramProvisioner, new BwProvisionerSimple(bw), storage,
+                        peList, new VmSchedulerTimeShared(peList), powerModel);
+                if (memoryBandwidth > 0) {
+                    host.setMemoryChannels(new MemoryChannelModel(memoryBandwidth));
+                }
+                return host;
+            }
+            return new CpuHost(id, new RamProvisionerSimple(ram), new BwProvisionerSimple(bw), storage,
+                    peList, new VmSchedulerTimeShared(peList), powerModel);
+        }
+    }
+}
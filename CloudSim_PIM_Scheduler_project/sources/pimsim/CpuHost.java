@@ -0,0 +1,25 @@
+package pimsim;
+
+import java.util.List;
+import org.cloudbus.cloudsim.Pe;
+import org.cloudbus.cloudsim.VmScheduler;
+import org.cloudbus.cloudsim.power.PowerHost;
+import org.cloudbus.cloudsim.power.models.PowerModel;
+import org.cloudbus.cloudsim.provisioners.BwProvisioner;
+import org.cloudbus.cloudsim.provisioners.RamProvisioner;
+
+/**
+ * A power-aware host of the CPU type.
+ */
+public class CpuHost extends PowerHost implements TypedResource {
+
+    public CpuHost(int id, RamProvisioner ramProvisioner, BwProvisioner bwProvisioner, long storage,
+                   List<? extends Pe> peList, VmScheduler vmScheduler, PowerModel powerModel) {
+        super(id, ramProvisioner, bwProvisioner, storage, peList, vmScheduler, powerModel);
+    }
+
+    @Override
+    public ExecutionType getExecutionType() {
+        return ExecutionType.CPU;
+    }
+}
@@ -0,0 +1,23 @@
+package pimsim;
+
+/**
+ * Where a cloudlet should run: on a processing-in-memory VM or on a conventional CPU VM.
+ */
+public enum ExecutionType {
+    PIM,
+    CPU;
+
+    /** Compact codes used by the batch APIs, equal to {@link #ordinal()}. */
+    public static final byte PIM_CODE = 0;
+    public static final byte CPU_CODE = 1;
+
+    private static final ExecutionType[] BY_CODE = values();
+
+    public byte code() {
+        return (byte) ordinal();
+    }
+
+    public static ExecutionType fromCode(byte code) {
+        return BY_CODE[code];
+    }
+}
@@ -0,0 +1,41 @@
+package pimsim;
+
+import java.util.List;
+import org.cloudbus.cloudsim.Datacenter;
+import org.cloudbus.cloudsim.DatacenterCharacteristics;
+import org.cloudbus.cloudsim.Host;
+import org.cloudbus.cloudsim.Storage;
+import org.cloudbus.cloudsim.Vm;
+import org.cloudbus.cloudsim.VmAllocationPolicy;
+import org.cloudbus.cloudsim.core.SimEvent;
+
+/**
+ * Datacenter that keeps a {@link ResourceTypeIndex} of its PIM hosts and of the VMs created on it.
+ * A VM stays indexed after it is destroyed, since its type does not change.
+ */
+public class HeterogeneousDatacenter extends Datacenter {
+
+    private final ResourceTypeIndex typeIndex = new ResourceTypeIndex();
+
+    public HeterogeneousDatacenter(String name, DatacenterCharacteristics characteristics,
+                                   VmAllocationPolicy vmAllocationPolicy, List<Storage> storageList,
+                                   double schedulingInterval) throws Exception {
+        super(name, characteristics, vmAllocationPolicy, storageList, schedulingInterval);
+        for (Host host : getHostList()) {
+            typeIndex.addHost(host);
+        }
+    }
+
+    @Override
+    protected void processVmCreate(SimEvent ev, boolean ack) {
+        super.processVmCreate(ev, ack);
+        Vm vm = (Vm) ev.getData();
+        if (getVmAllocationPolicy().getHost(vm) != null) {
+            typeIndex.addVm(vm);
+        }
+    }
+
+    public ResourceTypeIndex getTypeIndex() {
+        return typeIndex;
+    }
+}
@@ -2,13 +2,16 @@ package pimsim;
 
 import java.util.*;
 import org.cloudbus.cloudsim.*;
-import org.cloudbus.cloudsim.power.*;
 import org.cloudbus.cloudsim.power.models.PowerModel;
 import org.cloudbus.cloudsim.power.models.PowerModelLinear;
 import org.cloudbus.cloudsim.provisioners.*;
 
 public class HeterogeneousHostConfig {
 
+    // Power models are immutable, so every host of a type shares one (and one PowerTable)
+    private static final PowerModel CPU_POWER_MODEL = new PowerModelLinear(250, 200.0 / 250); // High power for CPU: 200 W idle, 250 W max
+    private static final PowerModel PIM_POWER_MODEL = new PowerModelLinear(120, 80.0 / 120); // Lower power for PIM: 80 W idle, 120 W max
+
     // Modified method to create a CPU Host with configurable MIPS and RAM
     public static Host createCPUHost(int id, int mips, int ram) {
         List<Pe> peList = new ArrayList<>();
@@ -17,9 +20,9 @@ public class HeterogeneousHostConfig {
         long storage = 1_000_000; // 1 TB
         int bw = 10000;
 
-        PowerModel powerModel = new PowerModelLinear(200, 250); // High power for CPU
+        PowerModel powerModel = CPU_POWER_MODEL;
 
-        return new PowerHost(
+        return new CpuHost(
             id,
             new RamProvisionerSimple(ram),
             new BwProvisionerSimple(bw),
@@ -38,11 +41,32 @@ public class HeterogeneousHostConfig {
         long storage = 1_000_000; // 1 TB
         int bw = 10000;
 
-        PowerModel powerModel = new PowerModelLinear(80, 120); // Lower power for PIM
+        PowerModel powerModel = PIM_POWER_MODEL;
 
-        return new PowerHost(
+        return new PimHost(
             id,
-            new RamProvisionerSimple(ram),
+            new RamProvisionerBanked(ram), // RAM handed out in 64 MB banks, each with its own compute
+            new BwProvisionerSimple(bw),
+            storage,
+            peList,
+            new VmSchedulerTimeShared(peList),
+            powerModel
+        );
+    }
+
+    // PIM server whose DIMMs expose many small cores (e.g. 2560 DPUs), kept as one PeGroup
+    public static Host createPIMHost(int id, int cores, int mipsPerCore, int ram) {
+        List<Pe> peList = new ArrayList<>();
+        peList.add(new PeGroup(0, cores, mipsPerCore)); // all cores share one provisioner
+
+        long storage = 1_000_000; // 1 TB
+        int bw = 10000;
+
+        PowerModel powerModel = PIM_POWER_MODEL;
+
+        return new PimHost(
+            id,
+            new RamProvisionerBanked(ram), // RAM handed out in 64 MB banks, each with its own compute
             new BwProvisionerSimple(bw),
             storage,
             peList,
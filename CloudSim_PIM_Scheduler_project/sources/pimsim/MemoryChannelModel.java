@@ -0,0 +1,72 @@
+package pimsim;
+
+import java.util.List;
+import org.cloudbus.cloudsim.Vm;
+
+/**
+ * Memory channels shared by all VMs of a host. The running cloudlets of the host's memory-bound
+ * cloudlet schedulers together ask for some memory bandwidth; while that demand exceeds the channel
+ * bandwidth, every memory-bound cloudlet is slowed by the same factor, bandwidth / demand, so the
+ * channels are divided in proportion to demand.
+ */
+public class MemoryChannelModel {
+
+    private final double bandwidth;
+    private double demand;
+    private double contentionFactor = 1.0;
+
+    /**
+     * @param bandwidth total bandwidth of the host's memory channels, in MB/s
+     */
+    public MemoryChannelModel(double bandwidth) {
+        if (bandwidth <= 0) {
+            throw new IllegalArgumentException("Memory bandwidth must be positive");
+        }
+        this.bandwidth = bandwidth;
+    }
+
+    /**
+     * Recomputes the demand of the cloudlets now running on the VMs and hands the resulting
+     * slowdown to their memory-bound schedulers.
+     *
+     * @return true if the slowdown changed
+     */
+    public boolean apply(List<? extends Vm> vms) {
+        double total = 0.0;
+        for (Vm vm : vms) {
+            if (vm.getCloudletScheduler() instanceof CloudletSchedulerMemoryBound) {
+                total += ((CloudletSchedulerMemoryBound) vm.getCloudletScheduler()).getMemoryDemand();
+            }
+        }
+        demand = total;
+
+        double factor = demand > bandwidth ? bandwidth / demand : 1.0;
+        boolean changed = factor != contentionFactor;
+        contentionFactor = factor;
+        for (Vm vm : vms) {
+            if (vm.getCloudletScheduler() instanceof CloudletSchedulerMemoryBound) {
+                ((CloudletSchedulerMemoryBound) vm.getCloudletScheduler()).setContentionFactor(factor);
+            }
+        }
+        return changed;
+    }
+
+    public double getBandwidth() {
+        return bandwidth;
+    }
+
+    /** Bandwidth the running memory-bound cloudlets would use without contention, in MB/s. */
+    public double getDemand() {
+        return demand;
+    }
+
+    /** Share of its uncontended speed at which a memory-bound cloudlet now runs, in (0, 1]. */
+    public double getContentionFactor() {
+        return contentionFactor;
+    }
+
+    /** Demand over bandwidth; above 1 the channels are saturated. */
+    public double getUtilization() {
+        return demand / bandwidth;
+    }
+}
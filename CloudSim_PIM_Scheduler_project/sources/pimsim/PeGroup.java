@@ -0,0 +1,65 @@
+package pimsim;
+
+import org.cloudbus.cloudsim.Pe;
+import org.cloudbus.cloudsim.provisioners.PeProvisioner;
+import org.cloudbus.cloudsim.provisioners.PeProvisionerSimple;
+
+/**
+ * A single Pe standing for a group of identical cores, such as the DPUs of a PIM DIMM. PeList and
+ * the hosts count it as getNumberOfCores() PEs of getMips() MIPS each, while the group keeps one
+ * provisioner for the pooled MIPS of all its cores.
+ *
+ * Only the pooled MIPS are tracked per VM; cores are not handed out one by one. The group has one
+ * status, like a plain Pe, and all its cores are free, busy or failed together.
+ *
+ * Meant for time-shared VM schedulers, which provision MIPS from the pool; a space-shared
+ * scheduler hands out Pe objects and would give the whole group to one virtual PE.
+ */
+public class PeGroup extends Pe {
+
+    private final int cores;
+
+    public PeGroup(int id, int cores, double mipsPerCore) {
+        this(id, cores, new PeProvisionerSimple(cores * mipsPerCore));
+    }
+
+    /**
+     * @param peProvisioner provisioner for the MIPS of all cores together
+     */
+    public PeGroup(int id, int cores, PeProvisioner peProvisioner) {
+        super(id, peProvisioner);
+        if (cores <= 0) {
+            throw new IllegalArgumentException("A PE group needs at least one core");
+        }
+        this.cores = cores;
+    }
+
+    /** MIPS of one core. */
+    @Override
+    public int getMips() {
+        return (int) (getPeProvisioner().getMips() / cores);
+    }
+
+    /** Sets the MIPS of every core. */
+    @Override
+    public void setMips(double mipsPerCore) {
+        getPeProvisioner().setMips(mipsPerCore * cores);
+    }
+
+    @Override
+    public int getNumberOfCores() {
+        return cores;
+    }
+
+    /** All cores while the group is FREE, none otherwise. */
+    @Override
+    public int getNumberOfFreeCores() {
+        return getStatus() == FREE ? cores : 0;
+    }
+
+    /** All cores while the group is BUSY, none otherwise. */
+    @Override
+    public int getNumberOfBusyCores() {
+        return getStatus() == BUSY ? cores : 0;
+    }
+}
@@ -0,0 +1,52 @@
+package pimsim;
+
+import org.cloudbus.cloudsim.Cloudlet;
+import org.cloudbus.cloudsim.UtilizationModel;
+
+/**
+ * A cloudlet that declares its memory working set, so memory-bound schedulers can tell how much
+ * data it streams. The data traffic is the working set times the number of passes over it.
+ */
+public class PimCloudlet extends Cloudlet {
+
+    public static final double DEFAULT_MEMORY_PASSES = 100.0;
+
+    private final int ram;
+    private final double memoryPasses;
+
+    public PimCloudlet(int cloudletId, long cloudletLength, int pesNumber, long cloudletFileSize,
+                       long cloudletOutputSize, UtilizationModel utilizationModelCpu,
+                       UtilizationModel utilizationModelRam, UtilizationModel utilizationModelBw, int ram) {
+        this(cloudletId, cloudletLength, pesNumber, cloudletFileSize, cloudletOutputSize,
+                utilizationModelCpu, utilizationModelRam, utilizationModelBw, ram, DEFAULT_MEMORY_PASSES);
+    }
+
+    public PimCloudlet(int cloudletId, long cloudletLength, int pesNumber, long cloudletFileSize,
+                       long cloudletOutputSize, UtilizationModel utilizationModelCpu,
+                       UtilizationModel utilizationModelRam, UtilizationModel utilizationModelBw, int ram,
+                       double memoryPasses) {
+        super(cloudletId, cloudletLength, pesNumber, cloudletFileSize, cloudletOutputSize,
+                utilizationModelCpu, utilizationModelRam, utilizationModelBw);
+        this.ram = ram;
+        this.memoryPasses = memoryPasses;
+    }
+
+    /** Working set in MB. */
+    public int getRam() {
+        return ram;
+    }
+
+    public double getMemoryPasses() {
+        return memoryPasses;
+    }
+
+    /** Data streamed through memory over the whole run, in MB. */
+    public double getMemoryTraffic() {
+        return ram * memoryPasses;
+    }
+
+    /** Memory traffic of any cloudlet; plain cloudlets are treated as compute-only. */
+    public static double memoryTrafficOf(Cloudlet cloudlet) {
+        return cloudlet instanceof PimCloudlet ? ((PimCloudlet) cloudlet).getMemoryTraffic() : 0.0;
+    }
+}
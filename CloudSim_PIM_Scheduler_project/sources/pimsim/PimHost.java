@@ -0,0 +1,65 @@
+package pimsim;
+
+import java.util.List;
+import org.cloudbus.cloudsim.Pe;
+import org.cloudbus.cloudsim.Vm;
+import org.cloudbus.cloudsim.VmScheduler;
+import org.cloudbus.cloudsim.power.PowerHost;
+import org.cloudbus.cloudsim.power.models.PowerModel;
+import org.cloudbus.cloudsim.provisioners.BwProvisioner;
+import org.cloudbus.cloudsim.provisioners.RamProvisioner;
+
+/**
+ * A power-aware host of the PIM type. Given a {@link MemoryChannelModel}, its VMs' memory-bound
+ * cloudlets share the host's memory bandwidth and slow down as more of them run at once.
+ */
+public class PimHost extends PowerHost implements TypedResource {
+
+    private MemoryChannelModel memoryChannels;
+
+    public PimHost(int id, RamProvisioner ramProvisioner, BwProvisioner bwProvisioner, long storage,
+                   List<? extends Pe> peList, VmScheduler vmScheduler, PowerModel powerModel) {
+        super(id, ramProvisioner, bwProvisioner, storage, peList, vmScheduler, powerModel);
+    }
+
+    /**
+     * Processes the elapsed interval at the slowdown that held during it, then, if the cloudlets
+     * that started or finished changed the slowdown, re-estimates the next completion with it.
+     */
+    @Override
+    public double updateVmsProcessing(double currentTime) {
+        if (memoryChannels == null) {
+            return super.updateVmsProcessing(currentTime);
+        }
+        memoryChannels.apply(getVmList());
+        double smallerTime = super.updateVmsProcessing(currentTime);
+        if (!memoryChannels.apply(getVmList())) {
+            return smallerTime;
+        }
+
+        smallerTime = Double.MAX_VALUE;
+        for (Vm vm : getVmList()) {
+            double time = vm.updateVmProcessing(currentTime, getVmScheduler().getAllocatedMipsForVm(vm));
+            if (time > 0.0 && time < smallerTime) {
+                smallerTime = time;
+            }
+        }
+        return smallerTime;
+    }
+
+    /**
+     * Makes the VMs of this host share its memory channels, or removes sharing when null.
+     */
+    public void setMemoryChannels(MemoryChannelModel memoryChannels) {
+        this.memoryChannels = memoryChannels;
+    }
+
+    public MemoryChannelModel getMemoryChannels() {
+        return memoryChannels;
+    }
+
+    @Override
+    public ExecutionType getExecutionType() {
+        return ExecutionType.PIM;
+    }
+}
@@ -0,0 +1,163 @@
+package pimsim;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.Map;
+import org.cloudbus.cloudsim.Vm;
+import org.cloudbus.cloudsim.provisioners.RamProvisioner;
+
+/**
+ * RAM provisioner for PIM hosts that hands out memory in whole banks (DRAM banks or DPUs), each
+ * with its own compute units and internal bandwidth. A VM is granted ceil(ram / bankSize) banks;
+ * if it runs a {@link CloudletSchedulerPIM}, the scheduler is told how many banks it got, so the
+ * throughput of its cloudlets scales with the banks granted rather than with a fixed bank count.
+ */
+public class RamProvisionerBanked extends RamProvisioner {
+
+    public static final int DEFAULT_BANK_SIZE = 64; // MB per bank
+    public static final double DEFAULT_BANK_MIPS = 150.0;
+
+    private final int bankSize;
+    private final double bankMips;
+    private final double bankBandwidth;
+    private final int bankCount;
+    private final BitSet freeBanks;
+    private final Map<String, BitSet> grants = new HashMap<>();
+    private final Map<String, Vm> grantedVms = new HashMap<>();
+
+    /**
+     * Splits the given amount of RAM into banks of the default size, compute and bandwidth. Any RAM
+     * beyond the last whole bank is left out.
+     *
+     * @throws IllegalArgumentException if ram is below one bank ({@value #DEFAULT_BANK_SIZE} MB)
+     */
+    public RamProvisionerBanked(int ram) {
+        this(ram / DEFAULT_BANK_SIZE, DEFAULT_BANK_SIZE, DEFAULT_BANK_MIPS,
+                CloudletSchedulerPIM.DEFAULT_BANK_BANDWIDTH);
+    }
+
+    /**
+     * @param bankCount     number of banks on the host
+     * @param bankSize      memory per bank, in MB
+     * @param bankMips      compute capacity of one bank
+     * @param bankBandwidth internal bandwidth of one bank, in MB/s
+     */
+    public RamProvisionerBanked(int bankCount, int bankSize, double bankMips, double bankBandwidth) {
+        super(bankCount * bankSize);
+        if (bankCount <= 0 || bankSize <= 0) {
+            throw new IllegalArgumentException("Bank count and bank size must be positive");
+        }
+        this.bankCount = bankCount;
+        this.bankSize = bankSize;
+        this.bankMips = bankMips;
+        this.bankBandwidth = bankBandwidth;
+        this.freeBanks = new BitSet(bankCount);
+        freeBanks.set(0, bankCount);
+    }
+
+    @Override
+    public boolean allocateRamForVm(Vm vm, int ram) {
+        int maxRam = vm.getRam();
+        if (ram >= maxRam) {
+            ram = maxRam;
+        }
+
+        deallocateRamForVm(vm);
+
+        int needed = banksFor(ram);
+        if (freeBanks.cardinality() < needed) {
+            vm.setCurrentAllocatedRam(0);
+            return false;
+        }
+
+        BitSet grant = new BitSet(bankCount);
+        int bank = -1;
+        for (int i = 0; i < needed; i++) {
+            bank = freeBanks.nextSetBit(bank + 1);
+            grant.set(bank);
+        }
+        freeBanks.andNot(grant);
+        grants.put(vm.getUid(), grant);
+        grantedVms.put(vm.getUid(), vm);
+        setAvailableRam(getAvailableRam() - needed * bankSize);
+        vm.setCurrentAllocatedRam(needed * bankSize);
+
+        if (vm.getCloudletScheduler() instanceof CloudletSchedulerPIM) {
+            ((CloudletSchedulerPIM) vm.getCloudletScheduler()).assignBanks(needed, bankMips, bankBandwidth);
+        }
+        return true;
+    }
+
+    @Override
+    public int getAllocatedRamForVm(Vm vm) {
+        return getBankCountForVm(vm) * bankSize;
+    }
+
+    @Override
+    public void deallocateRamForVm(Vm vm) {
+        BitSet grant = grants.remove(vm.getUid());
+        if (grant == null) {
+            return;
+        }
+        grantedVms.remove(vm.getUid());
+        freeBanks.or(grant);
+        setAvailableRam(getAvailableRam() + grant.cardinality() * bankSize);
+        vm.setCurrentAllocatedRam(0);
+
+        if (vm.getCloudletScheduler() instanceof CloudletSchedulerPIM) {
+            ((CloudletSchedulerPIM) vm.getCloudletScheduler()).releaseBanks();
+        }
+    }
+
+    @Override
+    public void deallocateRamForAllVms() {
+        for (Vm vm : new ArrayList<>(grantedVms.values())) {
+            deallocateRamForVm(vm);
+        }
+        super.deallocateRamForAllVms();
+    }
+
+    @Override
+    public boolean isSuitableForVm(Vm vm, int ram) {
+        int ramAsked = Math.min(ram, vm.getRam());
+        return freeBanks.cardinality() + getBankCountForVm(vm) >= banksFor(ramAsked);
+    }
+
+    /**
+     * Indexes of the banks granted to a VM; empty if it holds none.
+     */
+    public BitSet getBanksForVm(Vm vm) {
+        BitSet grant = grants.get(vm.getUid());
+        return grant == null ? new BitSet() : (BitSet) grant.clone();
+    }
+
+    public int getBankCountForVm(Vm vm) {
+        BitSet grant = grants.get(vm.getUid());
+        return grant == null ? 0 : grant.cardinality();
+    }
+
+    public int getFreeBankCount() {
+        return freeBanks.cardinality();
+    }
+
+    public int getBankCount() {
+        return bankCount;
+    }
+
+    public int getBankSize() {
+        return bankSize;
+    }
+
+    public double getBankMips() {
+        return bankMips;
+    }
+
+    public double getBankBandwidth() {
+        return bankBandwidth;
+    }
+
+    private int banksFor(int ram) {
+        return (ram + bankSize - 1) / bankSize;
+    }
+}
@@ -0,0 +1,58 @@
+package pimsim;
+
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.Map;
+import org.cloudbus.cloudsim.Host;
+import org.cloudbus.cloudsim.Vm;
+
+/**
+ * Bitsets of the host ids and VM ids that are PIM resources, so type checks are O(1) per id.
+ * Resources that do not implement {@link TypedResource} are indexed as CPU. VM ids are only unique
+ * per broker, as in CloudSim's VM uids, so VMs are indexed by user id and then by VM id.
+ */
+public class ResourceTypeIndex {
+
+    private final BitSet pimHosts = new BitSet();
+    private final Map<Integer, BitSet> pimVmsByUser = new HashMap<>();
+
+    public synchronized void addHost(Host host) {
+        pimHosts.set(host.getId(), typeOf(host) == ExecutionType.PIM);
+    }
+
+    public synchronized void addVm(Vm vm) {
+        BitSet pimVms = pimVmsByUser.get(vm.getUserId());
+        if (pimVms == null) {
+            pimVms = new BitSet();
+            pimVmsByUser.put(vm.getUserId(), pimVms);
+        }
+        pimVms.set(vm.getId(), typeOf(vm) == ExecutionType.PIM);
+    }
+
+    public synchronized boolean isPimHost(int hostId) {
+        return pimHosts.get(hostId);
+    }
+
+    public synchronized boolean isPimVm(int userId, int vmId) {
+        BitSet pimVms = pimVmsByUser.get(userId);
+        return pimVms != null && pimVms.get(vmId);
+    }
+
+    public ExecutionType getVmType(int userId, int vmId) {
+        return isPimVm(userId, vmId) ? ExecutionType.PIM : ExecutionType.CPU;
+    }
+
+    /**
+     * Copy of the ids of the user's PIM VMs, for bulk filtering with BitSet operations.
+     */
+    public synchronized BitSet getPimVmIds(int userId) {
+        BitSet pimVms = pimVmsByUser.get(userId);
+        return pimVms == null ? new BitSet() : (BitSet) pimVms.clone();
+    }
+
+    public static ExecutionType typeOf(Object resource) {
+        return resource instanceof TypedResource
+                ? ((TypedResource) resource).getExecutionType()
+                : ExecutionType.CPU;
+    }
+}
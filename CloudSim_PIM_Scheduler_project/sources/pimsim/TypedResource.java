@@ -0,0 +1,10 @@
+package pimsim;
+
+/**
+ * A host or VM that declares whether it is a PIM or a CPU resource, instead of having its type
+ * guessed from its MIPS rating or id.
+ */
+public interface TypedResource {
+
+    ExecutionType getExecutionType();
+}
@@ -0,0 +1,23 @@
+package pimsim;
+
+import org.cloudbus.cloudsim.CloudletScheduler;
+import org.cloudbus.cloudsim.Vm;
+
+/**
+ * A VM that is explicitly meant to run PIM or CPU work.
+ */
+public class TypedVm extends Vm implements TypedResource {
+
+    private final ExecutionType executionType;
+
+    public TypedVm(int id, int userId, double mips, int numberOfPes, int ram, long bw, long size,
+                   String vmm, CloudletScheduler cloudletScheduler, ExecutionType executionType) {
+        super(id, userId, mips, numberOfPes, ram, bw, size, vmm, cloudletScheduler);
+        this.executionType = executionType;
+    }
+
+    @Override
+    public ExecutionType getExecutionType() {
+        return executionType;
+    }
+}
@@ -0,0 +1,259 @@
+package pimsim;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import org.cloudbus.cloudsim.Host;
+import org.cloudbus.cloudsim.Log;
+import org.cloudbus.cloudsim.Vm;
+import org.cloudbus.cloudsim.VmAllocationPolicy;
+import org.cloudbus.cloudsim.core.CloudSim;
+
+/**
+ * VM allocation policy that keeps PIM VMs on PIM hosts and every other VM on CPU hosts, using
+ * {@link ResourceTypeIndex#typeOf} for both. Within its pool a VM goes to the host with the most
+ * free MIPS (then the most free RAM) that has enough PEs and room for its MIPS, RAM and bandwidth.
+ *
+ * Each pool is a binary tree over its hosts in which every node holds the most free MIPS, RAM,
+ * bandwidth and PEs of any host below it. A placement searches it best first, most free MIPS first,
+ * and skips every subtree in which no host has room for the VM in all four, so hosts that are short
+ * of RAM or bandwidth are passed over a subtree at a time rather than one by one.
+ */
+public class VmAllocationPolicyTyped extends VmAllocationPolicy {
+
+    private final HostPool pimHosts;
+    private final HostPool cpuHosts;
+    private final Map<Integer, HostSlot> slotsByHostId = new HashMap<>();
+    private final Map<String, Host> vmTable = new HashMap<>();
+
+    public VmAllocationPolicyTyped(List<? extends Host> list) {
+        super(list);
+        List<HostSlot> pim = new ArrayList<>();
+        List<HostSlot> cpu = new ArrayList<>();
+        for (Host host : getHostList()) {
+            HostSlot slot = new HostSlot(host);
+            slotsByHostId.put(host.getId(), slot);
+            (ResourceTypeIndex.typeOf(host) == ExecutionType.PIM ? pim : cpu).add(slot);
+        }
+        pimHosts = new HostPool(pim);
+        cpuHosts = new HostPool(cpu);
+    }
+
+    @Override
+    public boolean allocateHostForVm(Vm vm) {
+        if (vmTable.containsKey(vm.getUid())) {
+            return false;
+        }
+        HostPool pool = poolFor(ResourceTypeIndex.typeOf(vm));
+        HostSlot slot = pool.place(vm);
+        if (slot != null) {
+            placed(vm, slot, pool);
+            return true;
+        }
+        Log.printLine(CloudSim.clock() + ": No " + ResourceTypeIndex.typeOf(vm)
+                + " host can fit VM #" + vm.getId());
+        return false;
+    }
+
+    @Override
+    public boolean allocateHostForVm(Vm vm, Host host) {
+        HostSlot slot = slotsByHostId.get(host.getId());
+        if (slot == null || slot.host != host || ResourceTypeIndex.typeOf(host) != ResourceTypeIndex.typeOf(vm)) {
+            return false;
+        }
+        if (host.vmCreate(vm)) {
+            placed(vm, slot, poolFor(ResourceTypeIndex.typeOf(host)));
+            Log.formatLine("%.2f: VM #" + vm.getId() + " has been allocated to the host #" + host.getId(),
+                    CloudSim.clock());
+            return true;
+        }
+        return false;
+    }
+
+    @Override
+    public void deallocateHostForVm(Vm vm) {
+        Host host = vmTable.remove(vm.getUid());
+        if (host != null) {
+            host.vmDestroy(vm);
+            poolFor(ResourceTypeIndex.typeOf(host)).refresh(slotsByHostId.get(host.getId()));
+        }
+    }
+
+    @Override
+    public List<Map<String, Object>> optimizeAllocation(List<? extends Vm> vmList) {
+        return null;
+    }
+
+    @Override
+    public Host getHost(Vm vm) {
+        return vmTable.get(vm.getUid());
+    }
+
+    @Override
+    public Host getHost(int vmId, int userId) {
+        return vmTable.get(Vm.getUid(userId, vmId));
+    }
+
+    private void placed(Vm vm, HostSlot slot, HostPool pool) {
+        vmTable.put(vm.getUid(), slot.host);
+        pool.refresh(slot);
+    }
+
+    private HostPool poolFor(ExecutionType type) {
+        return type == ExecutionType.PIM ? pimHosts : cpuHosts;
+    }
+
+    /**
+     * Free resources of one host, as last read from its provisioners.
+     */
+    private static final class HostSlot {
+        final Host host;
+        final int pes;
+        int leaf;
+        double freeMips;
+        int freeRam;
+        long freeBw;
+
+        HostSlot(Host host) {
+            this.host = host;
+            this.pes = host.getNumberOfPes();
+            refresh();
+        }
+
+        void refresh() {
+            freeMips = host.getVmScheduler().getAvailableMips();
+            freeRam = host.getRamProvisioner().getAvailableRam();
+            freeBw = host.getBwProvisioner().getAvailableBw();
+        }
+    }
+
+    /**
+     * The hosts of one pool as the leaves of a complete binary tree kept in arrays, node 1 being the
+     * root and node i having children 2i and 2i + 1. Each node holds the most free MIPS, RAM and
+     * bandwidth and the most PEs of the hosts below it; leaves past the last host hold nothing.
+     */
+    private static final class HostPool {
+
+        private final HostSlot[] slots;
+        private final int firstLeaf;
+        private final double[] maxMips;
+        private final int[] maxRam;
+        private final long[] maxBw;
+        private final int[] maxPes;
+
+        /** Most free MIPS first, then most free RAM; inner nodes before leaves, then leaves by host id. */
+        private final Comparator<Integer> bestFirst = new Comparator<Integer>() {
+            @Override
+            public int compare(Integer a, Integer b) {
+                if (maxMips[a] != maxMips[b]) {
+                    return Double.compare(maxMips[b], maxMips[a]);
+                }
+                if (maxRam[a] != maxRam[b]) {
+                    return Integer.compare(maxRam[b], maxRam[a]);
+                }
+                boolean leafA = a >= firstLeaf;
+                boolean leafB = b >= firstLeaf;
+                if (leafA != leafB) {
+                    return leafA ? 1 : -1;
+                }
+                if (leafA) {
+                    return Integer.compare(slots[a - firstLeaf].host.getId(), slots[b - firstLeaf].host.getId());
+                }
+                return Integer.compare(a, b);
+            }
+        };
+
+        HostPool(List<HostSlot> hosts) {
+            int leaves = 1;
+            while (leaves < hosts.size()) {
+                leaves *= 2;
+            }
+            firstLeaf = leaves;
+            slots = new HostSlot[leaves];
+            maxMips = new double[2 * leaves];
+            maxRam = new int[2 * leaves];
+            maxBw = new long[2 * leaves];
+            maxPes = new int[2 * leaves];
+            Arrays.fill(maxMips, -1.0);
+            Arrays.fill(maxRam, -1);
+            Arrays.fill(maxBw, -1L);
+            Arrays.fill(maxPes, -1);
+            for (int i = 0; i < hosts.size(); i++) {
+                HostSlot slot = hosts.get(i);
+                slot.leaf = leaves + i;
+                slots[i] = slot;
+                setLeaf(slot);
+            }
+            for (int node = leaves - 1; node >= 1; node--) {
+                pull(node);
+            }
+        }
+
+        /**
+         * Creates the VM on the best host that has room for it, trying the next best if a host's
+         * own checks refuse it.
+         *
+         * @return the host's slot, or null if no host of the pool took the VM
+         */
+        HostSlot place(Vm vm) {
+            PriorityQueue<Integer> open = new PriorityQueue<>(16, bestFirst);
+            if (fits(1, vm)) {
+                open.add(1);
+            }
+            while (!open.isEmpty()) {
+                int node = open.poll();
+                if (node >= firstLeaf) {
+                    HostSlot slot = slots[node - firstLeaf];
+                    if (slot.host.vmCreate(vm)) {
+                        return slot;
+                    }
+                    continue;
+                }
+                for (int child = 2 * node; child <= 2 * node + 1; child++) {
+                    if (fits(child, vm)) {
+                        open.add(child);
+                    }
+                }
+            }
+            return null;
+        }
+
+        /**
+         * Re-reads a host's free resources after a VM was created on it or removed from it.
+         */
+        void refresh(HostSlot slot) {
+            slot.refresh();
+            setLeaf(slot);
+            for (int node = slot.leaf / 2; node >= 1; node /= 2) {
+                pull(node);
+            }
+        }
+
+        private boolean fits(int node, Vm vm) {
+            return maxMips[node] >= vm.getCurrentRequestedTotalMips()
+                    && maxRam[node] >= vm.getCurrentRequestedRam()
+                    && maxBw[node] >= vm.getCurrentRequestedBw()
+                    && maxPes[node] >= vm.getNumberOfPes();
+        }
+
+        private void setLeaf(HostSlot slot) {
+            maxMips[slot.leaf] = slot.freeMips;
+            maxRam[slot.leaf] = slot.freeRam;
+            maxBw[slot.leaf] = slot.freeBw;
+            maxPes[slot.leaf] = slot.pes;
+        }
+
+        private void pull(int node) {
+            int left = 2 * node;
+            int right = left + 1;
+            maxMips[node] = Math.max(maxMips[left], maxMips[right]);
+            maxRam[node] = Math.max(maxRam[left], maxRam[right]);
+            maxBw[node] = Math.max(maxBw[left], maxBw[right]);
+            maxPes[node] = Math.max(maxPes[left], maxPes[right]);
+        }
+    }
+}
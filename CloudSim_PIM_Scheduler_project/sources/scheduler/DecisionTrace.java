@@ -0,0 +1,100 @@
+package scheduler;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+
+/**
+ * Fixed-size ring buffer of scheduler decisions held in primitive arrays. Once full, the oldest
+ * records are overwritten. Recording does not allocate, and a scheduler without a trace attached
+ * skips tracing entirely.
+ *
+ * The dump format is big-endian: an int record count, then per record, oldest first,
+ * byte kind, int cloudletId, double ratio, byte decision, int vmId, double estimate.
+ * Classification records have vmId -1 and the predicted execution time as estimate; selection
+ * records have a NaN ratio and the expected execution time on the chosen VM as estimate.
+ */
+public class DecisionTrace {
+
+    public static final byte KIND_CLASSIFY = 0;
+    public static final byte KIND_SELECT = 1;
+
+    private final byte[] kinds;
+    private final int[] cloudletIds;
+    private final double[] ratios;
+    private final byte[] decisions;
+    private final int[] vmIds;
+    private final double[] estimates;
+    private long recorded;
+
+    public DecisionTrace(int capacity) {
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("Trace capacity must be positive");
+        }
+        kinds = new byte[capacity];
+        cloudletIds = new int[capacity];
+        ratios = new double[capacity];
+        decisions = new byte[capacity];
+        vmIds = new int[capacity];
+        estimates = new double[capacity];
+    }
+
+    public synchronized void recordClassification(int cloudletId, double ratio, byte decision, double predictedTime) {
+        record(KIND_CLASSIFY, cloudletId, ratio, decision, -1, predictedTime);
+    }
+
+    public synchronized void recordSelection(int cloudletId, byte decision, int vmId, double estimate) {
+        record(KIND_SELECT, cloudletId, Double.NaN, decision, vmId, estimate);
+    }
+
+    private void record(byte kind, int cloudletId, double ratio, byte decision, int vmId, double estimate) {
+        int slot = (int) (recorded % kinds.length);
+        kinds[slot] = kind;
+        cloudletIds[slot] = cloudletId;
+        ratios[slot] = ratio;
+        decisions[slot] = decision;
+        vmIds[slot] = vmId;
+        estimates[slot] = estimate;
+        recorded++;
+    }
+
+    /**
+     * Number of records currently held, at most the capacity.
+     */
+    public synchronized int size() {
+        return (int) Math.min(recorded, kinds.length);
+    }
+
+    /**
+     * Total number of records ever written, including overwritten ones.
+     */
+    public synchronized long getRecordedCount() {
+        return recorded;
+    }
+
+    public synchronized void clear() {
+        recorded = 0;
+    }
+
+    /**
+     * Writes the held records to a file, oldest first, in the format described above.
+     */
+    public synchronized void dump(String fileName) throws IOException {
+        int size = size();
+        int start = (int) ((recorded - size) % kinds.length);
+        try (DataOutputStream out = new DataOutputStream(
+                new BufferedOutputStream(new FileOutputStream(fileName)))) {
+            out.writeInt(size);
+            for (int i = 0; i < size; i++) {
+                int slot = (start + i) % kinds.length;
+                out.writeByte(kinds[slot]);
+                out.writeInt(cloudletIds[slot]);
+                out.writeDouble(ratios[slot]);
+                out.writeByte(decisions[slot]);
+                out.writeInt(vmIds[slot]);
+                out.writeDouble(estimates[slot]);
+            }
+        }
+    }
+}
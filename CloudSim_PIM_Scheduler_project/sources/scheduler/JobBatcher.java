@@ -0,0 +1,128 @@
+package scheduler;
+
+import org.cloudbus.cloudsim.Cloudlet;
+import org.cloudbus.cloudsim.UtilizationModelFull;
+import pimsim.PimCloudlet;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Collects small PIM-bound jobs into one batched cloudlet so the launch overhead of a PIM VM is
+ * paid once per batch rather than once per job. A job is small if its length is at most
+ * smallJobLength; a batch is closed once its combined length reaches maxBatchLength, or by the
+ * broker when its first job has waited maxWait seconds.
+ *
+ * The batched cloudlet is as long as its jobs together, holds the largest of their working sets
+ * and streams their combined memory traffic.
+ */
+public class JobBatcher {
+
+    public static final long DEFAULT_SMALL_JOB_LENGTH = 50_000;
+    public static final long DEFAULT_MAX_BATCH_LENGTH = 500_000;
+    public static final double DEFAULT_MAX_WAIT = 1.0; // seconds
+
+    private final long smallJobLength;
+    private final long maxBatchLength;
+    private final double maxWait;
+
+    private final List<Cloudlet> jobs = new ArrayList<>();
+    private long length;
+    private int ram;
+    private double traffic;
+    private int batchNumber;
+
+    public JobBatcher() {
+        this(DEFAULT_SMALL_JOB_LENGTH, DEFAULT_MAX_BATCH_LENGTH, DEFAULT_MAX_WAIT);
+    }
+
+    public JobBatcher(long smallJobLength, long maxBatchLength, double maxWait) {
+        if (smallJobLength <= 0 || maxBatchLength < smallJobLength || maxWait < 0) {
+            throw new IllegalArgumentException("Batch limits must be positive and hold at least one small job");
+        }
+        this.smallJobLength = smallJobLength;
+        this.maxBatchLength = maxBatchLength;
+        this.maxWait = maxWait;
+    }
+
+    public boolean isSmall(long jobLength) {
+        return jobLength <= smallJobLength;
+    }
+
+    /**
+     * True if the open batch has room for a job of this length.
+     */
+    public boolean fits(long jobLength) {
+        return length + jobLength <= maxBatchLength;
+    }
+
+    public void add(Cloudlet job, int jobRam) {
+        jobs.add(job);
+        length += job.getCloudletLength();
+        ram = Math.max(ram, jobRam);
+        traffic += PimCloudlet.memoryTrafficOf(job);
+    }
+
+    /**
+     * True once the open batch has reached its length limit.
+     */
+    public boolean isFull() {
+        return length >= maxBatchLength;
+    }
+
+    public boolean isEmpty() {
+        return jobs.isEmpty();
+    }
+
+    /**
+     * Builds the batched cloudlet for the open batch.
+     */
+    public PimCloudlet toCloudlet(int batchId) {
+        UtilizationModelFull utilization = new UtilizationModelFull();
+        long fileSize = 0;
+        long outputSize = 0;
+        for (Cloudlet job : jobs) {
+            fileSize += job.getCloudletFileSize();
+            outputSize += job.getCloudletOutputSize();
+        }
+        double passes = ram > 0 ? traffic / ram : 0.0;
+        return new PimCloudlet(batchId, length, 1, fileSize, outputSize,
+                utilization, utilization, utilization, ram, passes);
+    }
+
+    /**
+     * Closes the open batch and returns its jobs; the next job starts a new batch.
+     */
+    public List<Cloudlet> drain() {
+        List<Cloudlet> drained = new ArrayList<>(jobs);
+        jobs.clear();
+        length = 0;
+        ram = 0;
+        traffic = 0.0;
+        batchNumber++;
+        return drained;
+    }
+
+    /**
+     * Number of the open batch, used to tell whether a wait timer still refers to it.
+     */
+    public int getBatchNumber() {
+        return batchNumber;
+    }
+
+    public int size() {
+        return jobs.size();
+    }
+
+    public double getMaxWait() {
+        return maxWait;
+    }
+
+    public long getSmallJobLength() {
+        return smallJobLength;
+    }
+
+    public long getMaxBatchLength() {
+        return maxBatchLength;
+    }
+}
@@ -0,0 +1,44 @@
+package scheduler;
+
+import pimsim.ExecutionType;
+
+/**
+ * Execution rates measured by running a probe cloudlet on a PIM VM and on a CPU VM. Rates are kept
+ * per million instructions so that a profile applies to every job of the same signature.
+ */
+public class JobProfile {
+
+    private final double pimSecondsPerMi;
+    private final double cpuSecondsPerMi;
+
+    public JobProfile(double pimSecondsPerMi, double cpuSecondsPerMi) {
+        this.pimSecondsPerMi = pimSecondsPerMi;
+        this.cpuSecondsPerMi = cpuSecondsPerMi;
+    }
+
+    /**
+     * Builds a profile from the measured run times of two probes of the given length.
+     */
+    public static JobProfile fromProbes(long probeLength, double pimTime, double cpuTime) {
+        return new JobProfile(pimTime / probeLength, cpuTime / probeLength);
+    }
+
+    public double predictTime(ExecutionType type, long length) {
+        return length * (type == ExecutionType.PIM ? pimSecondsPerMi : cpuSecondsPerMi);
+    }
+
+    /**
+     * How many times faster the job runs on PIM than on CPU.
+     */
+    public double getSpeedup() {
+        return cpuSecondsPerMi / pimSecondsPerMi;
+    }
+
+    public double getPimSecondsPerMi() {
+        return pimSecondsPerMi;
+    }
+
+    public double getCpuSecondsPerMi() {
+        return cpuSecondsPerMi;
+    }
+}
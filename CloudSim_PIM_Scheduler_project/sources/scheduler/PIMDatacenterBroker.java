@@ -0,0 +1,623 @@
+package scheduler;
+
+import org.cloudbus.cloudsim.Cloudlet;
+import org.cloudbus.cloudsim.DatacenterBroker;
+import org.cloudbus.cloudsim.Log;
+import org.cloudbus.cloudsim.UtilizationModelFull;
+import org.cloudbus.cloudsim.Vm;
+import org.cloudbus.cloudsim.core.CloudSim;
+import org.cloudbus.cloudsim.core.CloudSimTags;
+import org.cloudbus.cloudsim.core.SimEvent;
+import org.cloudbus.cloudsim.lists.VmList;
+import pimsim.ExecutionType;
+import pimsim.PimCloudlet;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+
+/**
+ * Broker that reports every returned cloudlet to a {@link PIMScheduler} while the simulation runs,
+ * so prediction errors adapt the threshold and VM load is released as soon as jobs finish.
+ *
+ * Jobs handed over with {@link #submitJob} are classified and placed by the scheduler when the
+ * broker dispatches them rather than up front: jobs submitted before the VMs exist are dispatched
+ * once they do, later ones right away, and jobs released with a delay when the delay has passed, so
+ * the threshold the scheduler has learnt from earlier returns applies to them. With profiling
+ * enabled, a job whose signature is not yet in the profile cache first has a short probe cloudlet
+ * run on a reserved PIM VM and a reserved CPU VM; the job is dispatched once both probes return and
+ * later jobs of the same signature skip profiling.
+ *
+ * Hybrid jobs handed over with {@link #submitHybridJob} are split by the scheduler into a PIM part
+ * and a CPU part, sent as two cloudlets. The CPU part is held back until the first pipeline stage
+ * of the PIM part and its transfer would be done. Once both parts have returned, the job itself is
+ * marked finished and added to the received list in their place.
+ *
+ * In EDF mode, jobs ready for dispatch are taken from a priority queue ordered by absolute
+ * deadline, and each is placed with the scheduler's deadline-aware selectVM, which reroutes it to
+ * the other pool or flags it when its slack on the chosen VM is negative. Jobs that no VM can
+ * finish in time are held back until every job that still can has been dispatched, so under
+ * overload hopeless jobs do not push feasible ones past their deadlines.
+ *
+ * With a {@link JobBatcher} attached, small jobs classified as PIM are coalesced into batched
+ * cloudlets so the PIM launch overhead is paid once per batch. A batch is sent when it is full or
+ * when its first job has waited the batcher's maximum wait. When a batch returns, its jobs are
+ * marked finished at the batch's finish time and added to the received list in its place.
+ */
+public class PIMDatacenterBroker extends DatacenterBroker {
+
+    public static final double PROBE_FRACTION = 0.10;
+    private static final int AUX_ID_BASE = 1_000_000_000; // ids of probes, hybrid job parts and batches
+    private static final int BATCH_TIMEOUT = 9_000; // event tags, clear of the CloudSimTags range
+    private static final int JOB_RELEASE = 9_001;
+
+    private final PIMScheduler scheduler;
+    private final List<Cloudlet> pendingJobs = new ArrayList<>();
+    private final Map<Cloudlet, Double> releaseDelays = new LinkedHashMap<>(); // released before the run
+    private boolean dispatching; // VMs are created and submitCloudlets has run
+    private final Map<Integer, JobSpec> jobSpecs = new HashMap<>();
+    private PredictionStore predictions; // every job's predicted time, only when recording
+
+    private ProfileCache profileCache;
+    private Vm pimProbeVm;
+    private Vm cpuProbeVm;
+    private int nextAuxId = AUX_ID_BASE;
+    private SplitPlan.Objective splitObjective = SplitPlan.Objective.COMPLETION_TIME;
+    private boolean edfDispatch;
+    private JobBatcher batcher;
+    private final Map<Integer, List<Cloudlet>> batches = new HashMap<>();
+    private final Map<Long, List<Cloudlet>> waitingForProfile = new HashMap<>();
+    private final Map<Integer, ProbeRun> probes = new HashMap<>();
+    private final Map<Integer, HybridRun> hybridParts = new HashMap<>(); // keyed by part id
+
+    public PIMDatacenterBroker(String name, PIMScheduler scheduler) throws Exception {
+        super(name);
+        this.scheduler = scheduler;
+    }
+
+    /**
+     * Enables in-simulation profiling. Both probe VMs must be part of this broker's VM list and
+     * should not be registered with the scheduler, so that regular jobs never land on them. If
+     * either cannot be created, jobs are classified without profiling.
+     */
+    public void enableProfiling(Vm pimProbeVm, Vm cpuProbeVm, ProfileCache profileCache) {
+        this.pimProbeVm = pimProbeVm;
+        this.cpuProbeVm = cpuProbeVm;
+        this.profileCache = profileCache;
+        scheduler.setProfileCache(profileCache);
+    }
+
+    /**
+     * Queues a job to be classified and placed by the scheduler at dispatch time.
+     */
+    public void submitJob(Cloudlet cloudlet, int ram, double deadline) {
+        cloudlet.setUserId(getId());
+        jobSpecs.put(cloudlet.getCloudletId(), new JobSpec(ram, CloudSim.clock() + deadline, deadline, -1));
+        enqueue(cloudlet);
+    }
+
+    /**
+     * Queues a job as {@link #submitJob(Cloudlet, int, double)} does once the given delay has passed;
+     * the deadline counts from then. The broker does not finish while released jobs are outstanding.
+     */
+    public void submitJob(Cloudlet cloudlet, int ram, double deadline, double delay) {
+        cloudlet.setUserId(getId());
+        jobSpecs.put(cloudlet.getCloudletId(), new JobSpec(ram, Double.NaN, deadline, -1));
+        release(cloudlet, delay);
+    }
+
+    /**
+     * Queues a job of which up to offloadableFraction of the length is a memory-bound kernel that
+     * may run on PIM. Its memory traffic, if it is a {@link PimCloudlet}, is taken to be the kernel's.
+     */
+    public void submitHybridJob(Cloudlet cloudlet, int ram, double offloadableFraction) {
+        cloudlet.setUserId(getId());
+        jobSpecs.put(cloudlet.getCloudletId(),
+                new JobSpec(ram, Double.NaN, Double.NaN, Math.max(0.0, Math.min(1.0, offloadableFraction))));
+        enqueue(cloudlet);
+    }
+
+    /**
+     * Queues a hybrid job as {@link #submitHybridJob(Cloudlet, int, double)} does once the given
+     * delay has passed.
+     */
+    public void submitHybridJob(Cloudlet cloudlet, int ram, double offloadableFraction, double delay) {
+        cloudlet.setUserId(getId());
+        jobSpecs.put(cloudlet.getCloudletId(),
+                new JobSpec(ram, Double.NaN, Double.NaN, Math.max(0.0, Math.min(1.0, offloadableFraction))));
+        release(cloudlet, delay);
+    }
+
+    private void release(Cloudlet cloudlet, double delay) {
+        if (CloudSim.running()) {
+            schedule(getId(), delay, JOB_RELEASE, cloudlet);
+        } else {
+            releaseDelays.put(cloudlet, delay); // events cannot be sent before the simulation starts
+        }
+        cloudletsSubmitted++; // outstanding until released, so the broker does not finish early
+    }
+
+    /**
+     * Sets what the scheduler minimizes when splitting hybrid jobs; completion time by default.
+     */
+    public void setSplitObjective(SplitPlan.Objective splitObjective) {
+        this.splitObjective = splitObjective;
+    }
+
+    /**
+     * Dispatches jobs earliest deadline first and places them against their deadlines when enabled;
+     * otherwise jobs are dispatched in submission order. Off by default.
+     */
+    public void setEdfDispatch(boolean edfDispatch) {
+        this.edfDispatch = edfDispatch;
+    }
+
+    /**
+     * Coalesces small PIM jobs with the given batcher, or dispatches every job on its own when null.
+     */
+    public void setBatcher(JobBatcher batcher) {
+        this.batcher = batcher;
+    }
+
+    /**
+     * Keeps the predicted time of every job classified from now on for getPredictedTime, for
+     * reporting after the run. Off by default, since the record grows with every job rather than
+     * with the jobs in flight.
+     */
+    public void setRecordPredictions(boolean recordPredictions) {
+        this.predictions = recordPredictions ? new PredictionStore() : null;
+    }
+
+    @Override
+    public void startEntity() {
+        super.startEntity();
+        for (Map.Entry<Cloudlet, Double> release : releaseDelays.entrySet()) {
+            schedule(getId(), release.getValue(), JOB_RELEASE, release.getKey());
+        }
+        releaseDelays.clear();
+    }
+
+    @Override
+    protected void submitCloudlets() {
+        // every datacenter has been tried by now; VMs none could create must not be selected
+        for (Vm vm : getVmList()) {
+            if (!getVmsToDatacentersMap().containsKey(vm.getId())) {
+                scheduler.unregisterVm(vm.getId());
+            }
+        }
+        super.submitCloudlets();
+
+        dispatching = true;
+        List<Cloudlet> jobs = new ArrayList<>(pendingJobs);
+        pendingJobs.clear();
+        dispatchJobs(jobs);
+    }
+
+    private void enqueue(Cloudlet job) {
+        if (dispatching) {
+            dispatchJobs(Collections.singletonList(job));
+        } else {
+            pendingJobs.add(job);
+        }
+    }
+
+    private void dispatchJobs(List<Cloudlet> jobs) {
+        if (!edfDispatch) {
+            for (Cloudlet job : jobs) {
+                dispatchJob(job);
+            }
+            return;
+        }
+
+        PriorityQueue<Cloudlet> queue = new PriorityQueue<>(Math.max(1, jobs.size()), new Comparator<Cloudlet>() {
+            @Override
+            public int compare(Cloudlet a, Cloudlet b) {
+                return Double.compare(jobSpecs.get(a.getCloudletId()).dueTime,
+                        jobSpecs.get(b.getCloudletId()).dueTime);
+            }
+        });
+        queue.addAll(jobs);
+        List<Cloudlet> late = new ArrayList<>();
+        while (!queue.isEmpty()) {
+            Cloudlet job = queue.poll();
+            JobSpec spec = jobSpecs.get(job.getCloudletId());
+            if (spec.offloadableFraction < 0
+                    && scheduler.getBestSlack(job.getCloudletLength(), PimCloudlet.memoryTrafficOf(job),
+                            spec.dueTime - CloudSim.clock()) < 0) {
+                late.add(job);
+                continue;
+            }
+            dispatchJob(job);
+        }
+        for (Cloudlet job : late) {
+            dispatchJob(job);
+        }
+    }
+
+    @Override
+    protected void processVmCreate(SimEvent ev) {
+        int[] data = (int[]) ev.getData();
+        if (data[2] == CloudSimTags.TRUE) {
+            Vm vm = VmList.getById(getVmList(), data[1]);
+            if (vm != null) {
+                scheduler.vmPlaced(vm);
+            }
+        }
+        super.processVmCreate(ev);
+    }
+
+    @Override
+    protected void processOtherEvent(SimEvent ev) {
+        if (ev.getTag() == BATCH_TIMEOUT) {
+            if (batcher != null && (Integer) ev.getData() == batcher.getBatchNumber() && !batcher.isEmpty()) {
+                flushBatch();
+            }
+            return;
+        }
+        if (ev.getTag() == JOB_RELEASE) {
+            Cloudlet job = (Cloudlet) ev.getData();
+            JobSpec spec = jobSpecs.get(job.getCloudletId());
+            if (spec.offloadableFraction < 0) {
+                jobSpecs.put(job.getCloudletId(),
+                        new JobSpec(spec.ram, CloudSim.clock() + spec.deadline, spec.deadline, -1));
+            }
+            cloudletsSubmitted--;
+            enqueue(job);
+            if (dispatching) {
+                finishIfDone(); // the job may have been dropped
+            }
+            return;
+        }
+        super.processOtherEvent(ev);
+    }
+
+    @Override
+    protected void processCloudletReturn(SimEvent ev) {
+        Cloudlet cloudlet = (Cloudlet) ev.getData();
+        List<Cloudlet> batchJobs = batches.remove(cloudlet.getCloudletId());
+        if (batchJobs != null) {
+            batchReturned(cloudlet, batchJobs);
+            return;
+        }
+        HybridRun hybrid = hybridParts.remove(cloudlet.getCloudletId());
+        if (hybrid != null) {
+            hybridPartReturned(cloudlet, hybrid);
+            return;
+        }
+        ProbeRun probe = probes.remove(cloudlet.getCloudletId());
+        if (probe == null) {
+            scheduler.cloudletFinished(cloudlet);
+            super.processCloudletReturn(ev);
+            return;
+        }
+
+        cloudletsSubmitted--;
+        probe.finished(cloudlet);
+        if (probe.isComplete()) {
+            profileCache.put(probe.signature,
+                    JobProfile.fromProbes(probe.length, probe.pimTime, probe.cpuTime));
+            List<Cloudlet> waiting = waitingForProfile.remove(probe.signature);
+            if (waiting != null) {
+                dispatchJobs(waiting);
+            }
+        }
+
+        finishIfDone();
+    }
+
+    private void finishIfDone() {
+        if (getCloudletList().size() == 0 && cloudletsSubmitted == 0) {
+            clearDatacenters();
+            finishExecution();
+        }
+    }
+
+    private void dispatchJob(Cloudlet job) {
+        int id = job.getCloudletId();
+        JobSpec spec = jobSpecs.get(id);
+        int ram = spec.ram;
+        long length = job.getCloudletLength();
+
+        if (spec.offloadableFraction >= 0) {
+            jobSpecs.remove(id);
+            dispatchHybridJob(job, spec);
+            return;
+        }
+
+        if (profileCache != null && canProbe() && profileCache.get(ram, length) == null) {
+            long signature = profileCache.signature(ram, length);
+            List<Cloudlet> waiting = waitingForProfile.get(signature);
+            if (waiting == null) {
+                waiting = new ArrayList<>();
+                waitingForProfile.put(signature, waiting);
+                launchProbes(signature, job, ram);
+            }
+            waiting.add(job);
+            return;
+        }
+
+        jobSpecs.remove(id);
+        ExecutionType decision = scheduler.classifyJob(id, ram, length, spec.deadline);
+        if (predictions != null) {
+            predictions.put(id, scheduler.getPredictedTime(id));
+        }
+        if (batcher != null && decision == ExecutionType.PIM && batcher.isSmall(length)) {
+            batchJob(job, ram);
+            return;
+        }
+        Vm vm = edfDispatch
+                ? scheduler.selectVM(id, decision, length, PimCloudlet.memoryTrafficOf(job),
+                        spec.dueTime - CloudSim.clock())
+                : scheduler.selectVM(id, decision, length);
+        if (vm == null || !getVmsToDatacentersMap().containsKey(vm.getId())) {
+            Log.printLine(CloudSim.clock() + ": " + getName() + ": No suitable VM found for Cloudlet " + id);
+            if (vm != null) {
+                scheduler.cloudletDropped(id, vm.getId(), length);
+            }
+            return;
+        }
+        job.setVmId(vm.getId());
+        send(job, vm, 0.0);
+        getCloudletSubmittedList().add(job);
+    }
+
+    private void batchJob(Cloudlet job, int ram) {
+        long length = job.getCloudletLength();
+        if (!batcher.fits(length)) {
+            flushBatch();
+        }
+        if (batcher.isEmpty()) {
+            schedule(getId(), batcher.getMaxWait(), BATCH_TIMEOUT, batcher.getBatchNumber());
+        }
+        batcher.add(job, ram);
+        cloudletsSubmitted++; // in flight until its batch returns, so the broker does not finish early
+        if (batcher.isFull()) {
+            flushBatch();
+        }
+    }
+
+    private void flushBatch() {
+        int batchId = nextAuxId++;
+        Cloudlet batch = batcher.toCloudlet(batchId);
+        List<Cloudlet> jobs = batcher.drain();
+        cloudletsSubmitted -= jobs.size();
+
+        Vm vm = scheduler.selectVM(batchId, ExecutionType.PIM, batch.getCloudletLength());
+        if (vm == null || !getVmsToDatacentersMap().containsKey(vm.getId())) {
+            Log.printLine(CloudSim.clock() + ": " + getName() + ": No suitable VM found for batch " + batchId);
+            if (vm != null) {
+                scheduler.cloudletDropped(batchId, vm.getId(), batch.getCloudletLength());
+            }
+            return;
+        }
+        batch.setUserId(getId());
+        batch.setVmId(vm.getId());
+        batches.put(batchId, jobs);
+        send(batch, vm, 0.0);
+        getCloudletSubmittedList().add(batch);
+    }
+
+    private void batchReturned(Cloudlet batch, List<Cloudlet> jobs) {
+        Log.printLine(CloudSim.clock() + ": " + getName() + ": Batch " + batch.getCloudletId()
+                + " of " + jobs.size() + " cloudlets received");
+        cloudletsSubmitted--;
+        for (Cloudlet job : jobs) {
+            jobReturned(job, batch, batch.getExecStartTime(), batch.getCloudletStatus());
+        }
+        scheduler.batchFinished(batch, jobs);
+
+        finishIfDone();
+    }
+
+    private void hybridPartReturned(Cloudlet part, HybridRun run) {
+        cloudletsSubmitted--;
+        scheduler.cloudletFinished(part);
+        run.finished(part);
+        if (run.isComplete()) {
+            Log.printLine(CloudSim.clock() + ": " + getName() + ": Hybrid Cloudlet " + run.job.getCloudletId()
+                    + " received");
+            jobReturned(run.job, part, run.startTime, run.status);
+        }
+
+        finishIfDone();
+    }
+
+    /**
+     * Marks a job that ran as other cloudlets as finished now, on the VM and resource of the given
+     * cloudlet, and adds it to the received list.
+     */
+    private void jobReturned(Cloudlet job, Cloudlet ranAs, double startTime, int status) {
+        job.setResourceParameter(ranAs.getResourceId(), ranAs.getCostPerSec());
+        job.setVmId(ranAs.getVmId());
+        job.setExecStartTime(startTime);
+        try {
+            job.setCloudletStatus(status);
+        } catch (Exception e) {
+            Log.printLine(getName() + ": " + e.getMessage());
+        }
+        getCloudletReceivedList().add(job);
+    }
+
+    private void dispatchHybridJob(Cloudlet job, JobSpec spec) {
+        int id = job.getCloudletId();
+        double traffic = PimCloudlet.memoryTrafficOf(job);
+        SplitPlan plan = scheduler.splitJob(id, spec.ram, job.getCloudletLength(), traffic,
+                spec.offloadableFraction, splitObjective);
+        if (plan == null || !isReady(plan.getPimVm()) || !isReady(plan.getCpuVm())) {
+            Log.printLine(CloudSim.clock() + ": " + getName() + ": No suitable VMs found for hybrid Cloudlet " + id);
+            if (plan != null && plan.getPimVm() != null) {
+                scheduler.cloudletDropped(id, plan.getPimVm().getId(), plan.getPimLength());
+            }
+            if (plan != null && plan.getCpuVm() != null) {
+                scheduler.cloudletDropped(id, plan.getCpuVm().getId(), plan.getCpuLength());
+            }
+            return;
+        }
+
+        if (plan.getCpuLength() == 0 || plan.getPimLength() == 0) {
+            Vm vm = plan.getCpuLength() == 0 ? plan.getPimVm() : plan.getCpuVm();
+            job.setVmId(vm.getId());
+            send(job, vm, 0.0);
+            getCloudletSubmittedList().add(job);
+            return;
+        }
+
+        // the kernel's traffic follows the offloaded share, the working set stays the same
+        double pimTraffic = traffic * plan.getPimFraction() / spec.offloadableFraction;
+        Cloudlet pimPart = part(job, nextAuxId++, plan.getPimLength(), spec.ram, pimTraffic, plan.getPimVm());
+        Cloudlet cpuPart = part(job, id, plan.getCpuLength(), spec.ram, traffic - pimTraffic, plan.getCpuVm());
+        double pipelineFill = (plan.getPimTime() + plan.getTransferTime()) / PIMScheduler.PIPELINE_STAGES;
+        send(pimPart, plan.getPimVm(), 0.0);
+        send(cpuPart, plan.getCpuVm(), pipelineFill);
+        getCloudletSubmittedList().add(pimPart);
+        getCloudletSubmittedList().add(cpuPart);
+        HybridRun run = new HybridRun(job);
+        hybridParts.put(pimPart.getCloudletId(), run);
+        hybridParts.put(cpuPart.getCloudletId(), run);
+    }
+
+    private Cloudlet part(Cloudlet job, int partId, long length, int ram, double traffic, Vm vm) {
+        double passes = ram > 0 ? traffic / ram : 0.0;
+        Cloudlet part = new PimCloudlet(partId, length, job.getNumberOfPes(), job.getCloudletFileSize(),
+                job.getCloudletOutputSize(), job.getUtilizationModelCpu(), job.getUtilizationModelRam(),
+                job.getUtilizationModelBw(), ram, passes);
+        part.setUserId(getId());
+        part.setVmId(vm.getId());
+        return part;
+    }
+
+    private boolean isReady(Vm vm) {
+        return vm == null || getVmsToDatacentersMap().containsKey(vm.getId());
+    }
+
+    /**
+     * Whether both probe VMs were created; jobs are classified without profiling otherwise.
+     */
+    private boolean canProbe() {
+        return getVmsToDatacentersMap().containsKey(pimProbeVm.getId())
+                && getVmsToDatacentersMap().containsKey(cpuProbeVm.getId());
+    }
+
+    private void launchProbes(long signature, Cloudlet job, int ram) {
+        long probeLength = Math.max(1, (long) (job.getCloudletLength() * PROBE_FRACTION));
+        ProbeRun run = new ProbeRun(signature, probeLength);
+        run.pimProbeId = sendProbe(job, probeLength, ram, pimProbeVm);
+        run.cpuProbeId = sendProbe(job, probeLength, ram, cpuProbeVm);
+        probes.put(run.pimProbeId, run);
+        probes.put(run.cpuProbeId, run);
+    }
+
+    /**
+     * Sends a probe with the job's working set and the share of its memory traffic that goes with
+     * the probe's share of its length, so the probe is as memory-bound as the job.
+     */
+    private int sendProbe(Cloudlet job, long probeLength, int ram, Vm vm) {
+        UtilizationModelFull utilization = new UtilizationModelFull();
+        double traffic = PimCloudlet.memoryTrafficOf(job) * probeLength / job.getCloudletLength();
+        Cloudlet probe = new PimCloudlet(nextAuxId++, probeLength, job.getNumberOfPes(),
+                job.getCloudletFileSize(), job.getCloudletOutputSize(), utilization, utilization, utilization,
+                ram, ram > 0 ? traffic / ram : 0.0);
+        probe.setUserId(getId());
+        probe.setVmId(vm.getId());
+        send(probe, vm, 0.0);
+        return probe.getCloudletId();
+    }
+
+    private void send(Cloudlet cloudlet, Vm vm, double delay) {
+        Log.printLine(CloudSim.clock() + ": " + getName() + ": Sending cloudlet "
+                + cloudlet.getCloudletId() + " to VM #" + vm.getId());
+        send(getVmsToDatacentersMap().get(vm.getId()), delay, CloudSimTags.CLOUDLET_SUBMIT, cloudlet);
+        cloudletsSubmitted++;
+    }
+
+    public PIMScheduler getScheduler() {
+        return scheduler;
+    }
+
+    /**
+     * The run time the scheduler predicted for a job when it was classified, or -1 if it never was
+     * or predictions are not being recorded.
+     *
+     * @see #setRecordPredictions(boolean)
+     */
+    public double getPredictedTime(int cloudletId) {
+        return predictions == null ? -1.0 : predictions.get(cloudletId, -1.0);
+    }
+
+    /**
+     * RAM and deadline of a job waiting to be classified, or RAM and offloadable fraction of a hybrid job.
+     */
+    private static class JobSpec {
+        final int ram;
+        final double dueTime; // simulation time of the deadline
+        final double deadline;
+        final double offloadableFraction; // negative for jobs that run whole on one VM
+
+        JobSpec(int ram, double dueTime, double deadline, double offloadableFraction) {
+            this.ram = ram;
+            this.dueTime = dueTime;
+            this.deadline = deadline;
+            this.offloadableFraction = offloadableFraction;
+        }
+    }
+
+    /**
+     * The two parts of a hybrid job, of which the job takes the earliest start and any failure.
+     */
+    private static class HybridRun {
+        final Cloudlet job;
+        int pendingParts = 2;
+        double startTime = Double.MAX_VALUE;
+        int status = Cloudlet.SUCCESS;
+
+        HybridRun(Cloudlet job) {
+            this.job = job;
+        }
+
+        void finished(Cloudlet part) {
+            pendingParts--;
+            startTime = Math.min(startTime, part.getExecStartTime());
+            if (part.getCloudletStatus() != Cloudlet.SUCCESS) {
+                status = part.getCloudletStatus();
+            }
+        }
+
+        boolean isComplete() {
+            return pendingParts == 0;
+        }
+    }
+
+    /**
+     * The pair of probe cloudlets profiling one job signature.
+     */
+    private static class ProbeRun {
+        final long signature;
+        final long length;
+        int pimProbeId;
+        int cpuProbeId;
+        double pimTime = -1;
+        double cpuTime = -1;
+
+        ProbeRun(long signature, long length) {
+            this.signature = signature;
+            this.length = length;
+        }
+
+        void finished(Cloudlet probe) {
+            if (probe.getCloudletId() == pimProbeId) {
+                pimTime = probe.getActualCPUTime();
+            } else {
+                cpuTime = probe.getActualCPUTime();
+            }
+        }
+
+        boolean isComplete() {
+            return pimTime >= 0 && cpuTime >= 0;
+        }
+    }
+}
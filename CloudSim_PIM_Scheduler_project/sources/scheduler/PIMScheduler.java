@@ -1,115 +1,640 @@
 package scheduler;
 
+import org.cloudbus.cloudsim.Cloudlet;
+import org.cloudbus.cloudsim.Host;
 import org.cloudbus.cloudsim.Log;
 import org.cloudbus.cloudsim.Vm;
+import org.cloudbus.cloudsim.power.PowerHost;
+import pimsim.CloudletSchedulerMemoryBound;
+import pimsim.ExecutionType;
+import pimsim.PimHost;
+import pimsim.ResourceTypeIndex;
 
+import java.util.Iterator;
 import java.util.List;
-import java.util.LinkedList;
-import java.util.Queue;
-import java.util.HashMap;
-import java.util.Map;
 
+/**
+ * Profiles cloudlets, classifies them as PIM or CPU work and picks a VM for them.
+ *
+ * All adaptive state (threshold, error window, predicted times) belongs to the instance, so
+ * independent simulations in the same JVM should each create their own scheduler. Methods are
+ * synchronized, which makes it safe to share one instance between threads as well.
+ */
 public class PIMScheduler {
 
-    private static double threshold = 0.004;
+    public static final double DEFAULT_THRESHOLD = 0.004;
     private static final double MIN_THRESHOLD = 0.002;
     private static final double MAX_THRESHOLD = 0.01;
     private static final double ADJUST_STEP = 0.0005;
     private static final int ERROR_WINDOW = 10;
-    private static Queue<Double> recentErrors = new LinkedList<>();
-    private static Map<Integer, Double> predictedTimes = new HashMap<>();
+    private static final double ASSUMED_POWER = 100.0; // in watts, used when the host has no power model
+    private static final double MIN_PIM_DEADLINE = 30.0; // seconds
+    private static final double PROFILE_FRACTION = 0.10;
+    private static final double PROFILE_MIPS = 100000.0;
+    public static final int PIPELINE_STAGES = 4;
+    private static final int SPLIT_STEPS = 20;
+    private static final int HOT_HOST_CANDIDATES = 8;
+
+    private double threshold;
+    private final double[] recentErrors = new double[ERROR_WINDOW];
+    private int errorCount;
+    private int oldestError;
+    private double errorSum;
+    private final PredictionStore predictedTimes = new PredictionStore();
+    private final VmPool pimPool = new VmPool();
+    private final VmPool cpuPool = new VmPool();
+    private DecisionTrace trace;
+    private ProfileCache profileCache;
+    private RuntimePredictor predictor;
+    private final PredictionStore atRisk = new PredictionStore(); // seconds a flagged cloudlet may be late
+    private int atRiskTotal;
+
+    public PIMScheduler() {
+        this(DEFAULT_THRESHOLD);
+    }
+
+    public PIMScheduler(double initialThreshold) {
+        this.threshold = initialThreshold;
+    }
 
     /**
      * Classifies a job (cloudlet) based on RAM/Length ratio, deadline, and simulated 10% execution time.
+     * When a profile cache is attached and holds the job's signature, the measured probe rates decide
+     * instead: the job goes to whichever type ran its probe faster, and the predicted time is that
+     * type's measured rate. Otherwise an attached runtime predictor estimates the time for the
+     * least-loaded VM of the chosen type.
      */
-    public static String classifyJob(int cloudletId, int ram, long length, double deadline) {
+    public synchronized ExecutionType classifyJob(int cloudletId, int ram, long length, double deadline) {
         double ratio = (double) ram / length;
-        double simulated10PercentTime = (length * 0.10) / 100000.0;  // simulate on 100K MIPS VM
-        savePredictedTime(cloudletId, simulated10PercentTime * 10); // store full predicted time
-
-        Log.printLine("\n--- Profiling Cloudlet ---");
-        Log.printLine("Cloudlet ID: " + cloudletId);
-        Log.printLine("RAM Required: " + ram + " MB");
-        Log.printLine("Length: " + length);
-        Log.printLine("RAM/Length Ratio: " + ratio);
-        Log.printLine("Deadline: " + deadline + " seconds");
-        Log.printLine("Simulated 10% Execution Time: " + String.format("%.2f", simulated10PercentTime) + " seconds");
-
-        if (ratio > threshold && deadline > 30.0) {
-            Log.printLine("Classification Result: PIM\n");
-            return "PIM";
+        double simulated10PercentTime = (length * PROFILE_FRACTION) / PROFILE_MIPS;  // simulate on 100K MIPS VM
+
+        JobProfile profile = profileCache == null ? null : profileCache.get(ram, length);
+        ExecutionType decision;
+        if (profile != null) {
+            decision = profile.getSpeedup() > 1.0 ? ExecutionType.PIM : ExecutionType.CPU;
         } else {
-            Log.printLine("Classification Result: CPU\n");
-            return "CPU";
+            decision = (ratio > threshold && deadline > MIN_PIM_DEADLINE) ? ExecutionType.PIM : ExecutionType.CPU;
         }
+        double predictedTime = profile != null
+                ? profile.predictTime(decision, length)
+                : modelTime(decision, ram, length, poolMips(decision));
+        if (predictedTime <= 0) {
+            predictedTime = simulated10PercentTime / PROFILE_FRACTION;
+        }
+        savePredictedTime(cloudletId, predictedTime); // store full predicted time
+
+        if (trace != null) {
+            trace.recordClassification(cloudletId, ratio, decision.code(), predictedTime);
+        }
+        if (!Log.isDisabled()) {
+            Log.printLine("\n--- Profiling Cloudlet ---");
+            Log.printLine("Cloudlet ID: " + cloudletId);
+            Log.printLine("RAM Required: " + ram + " MB");
+            Log.printLine("Length: " + length);
+            Log.printLine("RAM/Length Ratio: " + ratio);
+            Log.printLine("Deadline: " + deadline + " seconds");
+            if (profile != null) {
+                Log.printLine("Profiled PIM Speedup: " + String.format("%.2f", profile.getSpeedup()));
+            } else {
+                Log.printLine("Simulated 10% Execution Time: " + String.format("%.2f", simulated10PercentTime) + " seconds");
+            }
+            Log.printLine("Classification Result: " + decision + "\n");
+        }
+        return decision;
     }
 
     /**
-     * Selects the lowest-energy VM from matching type (PIM or CPU).
+     * Classifies a batch of jobs with the same rule as classifyJob, without logging or allocating.
+     * All arrays are parallel and indexed by job; decisions receive {@link ExecutionType} codes and
+     * predictions the full predicted execution time, which is also kept for getPredictedTime.
+     * As in classifyJob, a profile in the attached cache takes precedence over the threshold and
+     * the runtime predictor.
      */
-    public static Vm selectVM(List<Vm> vmList, String decision) {
-        double assumedPower = 100.0; // in watts
-        double minEnergy = Double.MAX_VALUE;
-        Vm selectedVM = null;
+    public void classifyJobs(int[] ids, int[] ram, long[] length, double[] deadline,
+                             byte[] decisions, double[] predictions) {
+        int n = ids.length;
+        if (ram.length < n || length.length < n || deadline.length < n
+                || decisions.length < n || predictions.length < n) {
+            throw new IllegalArgumentException("Batch arrays must hold at least " + n + " jobs");
+        }
 
-        for (Vm vm : vmList) {
-            boolean isPIM = vm.getMips() < 9000;
-            if ((decision.equals("PIM") && isPIM) || (decision.equals("CPU") && !isPIM)) {
-                double predictedTime = 1.0; // default time if unknown
-                for (Map.Entry<Integer, Double> entry : predictedTimes.entrySet()) {
-                    predictedTime = entry.getValue();
-                    break; // just take one sample for now
+        double currentThreshold;
+        ProfileCache profiles;
+        RuntimePredictor model;
+        double pimMips;
+        double cpuMips;
+        synchronized (this) {
+            currentThreshold = threshold;
+            profiles = profileCache;
+            model = predictor;
+            pimMips = poolMips(ExecutionType.PIM);
+            cpuMips = poolMips(ExecutionType.CPU);
+        }
+        for (int i = 0; i < n; i++) {
+            double len = length[i];
+            JobProfile profile = profiles == null ? null : profiles.get(ram[i], length[i]);
+            if (profile != null) {
+                decisions[i] = profile.getSpeedup() > 1.0 ? ExecutionType.PIM_CODE : ExecutionType.CPU_CODE;
+            } else {
+                decisions[i] = (ram[i] / len > currentThreshold && deadline[i] > MIN_PIM_DEADLINE)
+                        ? ExecutionType.PIM_CODE : ExecutionType.CPU_CODE;
+            }
+            double predicted = -1.0;
+            if (profile != null) {
+                predicted = profile.predictTime(decisions[i] == ExecutionType.PIM_CODE
+                        ? ExecutionType.PIM : ExecutionType.CPU, length[i]);
+            } else if (model != null) {
+                predicted = decisions[i] == ExecutionType.PIM_CODE
+                        ? model.predict(ExecutionType.PIM, length[i], ram[i], pimMips)
+                        : model.predict(ExecutionType.CPU, length[i], ram[i], cpuMips);
+            }
+            predictions[i] = predicted > 0 ? predicted : len / PROFILE_MIPS;
+        }
+
+        synchronized (this) {
+            for (int i = 0; i < n; i++) {
+                predictedTimes.put(ids[i], predictions[i]);
+            }
+            if (trace != null) {
+                for (int i = 0; i < n; i++) {
+                    trace.recordClassification(ids[i], (double) ram[i] / length[i], decisions[i], predictions[i]);
                 }
+            }
+        }
+    }
 
-                double energy = predictedTime * assumedPower;
-                Log.printLine("VM ID: " + vm.getId() + " | Type: " + (isPIM ? "PIM" : "CPU") + 
-                              " | Predicted Exec Time: " + String.format("%.2f", predictedTime) + 
-                              " sec | Estimated Energy: " + String.format("%.2f", energy) + " J");
+    /**
+     * Makes a VM available to selectVM for jobs of its declared type (CPU unless it is a
+     * {@link pimsim.TypedResource}), drawing power from the host it currently runs on.
+     */
+    public synchronized void registerVm(Vm vm) {
+        registerVm(vm, ResourceTypeIndex.typeOf(vm), vm.getHost());
+    }
+
+    /**
+     * Makes a VM available to selectVM for jobs of the given type, drawing power from the host it
+     * currently runs on.
+     */
+    public synchronized void registerVm(Vm vm, ExecutionType type) {
+        registerVm(vm, type, vm.getHost());
+    }
+
+    /**
+     * Makes a VM available to selectVM for jobs of the given type, drawing power from the given
+     * host. Use this when planning placements before the VM has been created.
+     */
+    public synchronized void registerVm(Vm vm, ExecutionType type, Host host) {
+        poolFor(type).add(vm, estimateWatts(vm, host));
+    }
+
+    /**
+     * Re-reads the power draw of a registered VM from the host it was actually created on.
+     */
+    public synchronized void vmPlaced(Vm vm) {
+        double watts = estimateWatts(vm, vm.getHost());
+        if (!pimPool.updateWatts(vm.getId(), watts)) {
+            cpuPool.updateWatts(vm.getId(), watts);
+        }
+    }
 
-                if (energy < minEnergy) {
-                    minEnergy = energy;
-                    selectedVM = vm;
+    /**
+     * Withdraws a VM from selectVM, e.g. when the datacenter failed to create it.
+     */
+    public synchronized void unregisterVm(int vmId) {
+        if (!pimPool.remove(vmId)) {
+            cpuPool.remove(vmId);
+        }
+    }
+
+    /**
+     * Selects the least-loaded VM of the matching type (PIM or CPU), breaking ties on power draw,
+     * and charges the cloudlet's length to it. If that VM's host has saturated memory channels, the
+     * next few least-loaded VMs are considered too and the one expected to finish the cloudlet first
+     * at its host's slowdown is chosen. Returns null if no VM of that type is registered.
+     */
+    public synchronized Vm selectVM(int cloudletId, ExecutionType decision, long length) {
+        VmPool pool = poolFor(decision);
+        return charge(pool, coolestSlot(pool, length, 0.0), cloudletId, decision, length);
+    }
+
+    /**
+     * Selects a VM as {@link #selectVM(int, ExecutionType, long)} does, then checks the slack left
+     * before the deadline once the work already queued on it and the cloudlet itself are done. If
+     * the slack is negative the least-loaded VM of the other pool is tried instead; if that misses
+     * the deadline as well, the cloudlet goes wherever it is least late and is flagged as at risk.
+     * The cloudlet's run time follows each VM's memory model, as in splitJob.
+     *
+     * @param memoryTraffic MB the cloudlet moves to and from memory, 0 if unknown
+     * @param deadline seconds from now by which the cloudlet should finish
+     */
+    public synchronized Vm selectVM(int cloudletId, ExecutionType decision, long length, double memoryTraffic,
+                                    double deadline) {
+        VmPool pool = poolFor(decision);
+        VmPool.Slot slot = coolestSlot(pool, length, memoryTraffic);
+        double slack = slot == null
+                ? Double.NEGATIVE_INFINITY : deadline - expectedFinish(slot, length, memoryTraffic);
+
+        if (slack < 0) {
+            ExecutionType other = decision == ExecutionType.PIM ? ExecutionType.CPU : ExecutionType.PIM;
+            VmPool otherPool = poolFor(other);
+            VmPool.Slot otherSlot = coolestSlot(otherPool, length, memoryTraffic);
+            double otherSlack = otherSlot == null
+                    ? Double.NEGATIVE_INFINITY : deadline - expectedFinish(otherSlot, length, memoryTraffic);
+            if (otherSlack > slack) {
+                if (!Log.isDisabled()) {
+                    Log.printLine("Cloudlet ID: " + cloudletId + " rerouted from " + decision + " to " + other +
+                                  " | Slack: " + String.format("%.2f", otherSlack) + " sec");
+                }
+                pool = otherPool;
+                slot = otherSlot;
+                slack = otherSlack;
+                decision = other;
+            }
+            if (slack < 0 && slot != null) {
+                atRisk.put(cloudletId, -slack);
+                atRiskTotal++;
+                if (!Log.isDisabled()) {
+                    Log.printLine("Cloudlet ID: " + cloudletId + " at risk of missing its deadline by " +
+                                  String.format("%.2f", -slack) + " sec");
                 }
             }
         }
+        return charge(pool, slot, cloudletId, decision, length);
+    }
+
+    /**
+     * The largest slack a cloudlet of this length would have on the least-loaded VM of either pool;
+     * negative if no VM can finish it by the deadline. Charges nothing.
+     *
+     * @param memoryTraffic MB the cloudlet moves to and from memory, 0 if unknown
+     * @param deadline seconds from now by which the cloudlet should finish
+     */
+    public synchronized double getBestSlack(long length, double memoryTraffic, double deadline) {
+        double best = Double.NEGATIVE_INFINITY;
+        for (VmPool pool : new VmPool[] {pimPool, cpuPool}) {
+            VmPool.Slot slot = coolestSlot(pool, length, memoryTraffic);
+            if (slot != null) {
+                best = Math.max(best, deadline - expectedFinish(slot, length, memoryTraffic));
+            }
+        }
+        return best;
+    }
 
-        return selectedVM;
+    /**
+     * True while a cloudlet placed by the deadline-aware selectVM is expected to miss its deadline.
+     */
+    public synchronized boolean isDeadlineAtRisk(int cloudletId) {
+        return atRisk.get(cloudletId, -1.0) >= 0;
     }
 
     /**
-     * Updates the threshold dynamically based on prediction error feedback.
+     * Number of cloudlets flagged as at risk of missing their deadlines since the scheduler was
+     * created, including those that have finished or been dropped since.
      */
-    public static void updateThreshold(double actualTime, double predictedTime) {
-        double error = Math.abs(actualTime - predictedTime) / actualTime;
-        recentErrors.add(error);
-        if (recentErrors.size() > ERROR_WINDOW) {
-            recentErrors.poll(); // remove oldest
+    public synchronized int getDeadlineAtRiskTotal() {
+        return atRiskTotal;
+    }
+
+    /**
+     * Charges the cloudlet to the slot, traces and logs the choice.
+     */
+    private Vm charge(VmPool pool, VmPool.Slot choice, int cloudletId, ExecutionType decision, long length) {
+        VmPool.Slot slot = pool.assign(choice, length);
+        if (slot == null) {
+            return null;
+        }
+
+        double predictedTime = length / (slot.capacity * memorySlowdown(slot.vm));
+        if (trace != null) {
+            trace.recordSelection(cloudletId, decision.code(), slot.vm.getId(), predictedTime);
+        }
+        if (!Log.isDisabled()) {
+            double energy = predictedTime * slot.watts;
+            Log.printLine("VM ID: " + slot.vm.getId() + " | Type: " + decision +
+                          " | Predicted Exec Time: " + String.format("%.2f", predictedTime) +
+                          " sec | Estimated Energy: " + String.format("%.2f", energy) + " J" +
+                          " | Queued Until: " + String.format("%.2f", slot.readyTime()) + " sec");
+        }
+        return slot.vm;
+    }
+
+    /**
+     * Splits a hybrid job between the least-loaded PIM VM and the least-loaded CPU VM, trying
+     * offloaded fractions from 0 up to offloadableFraction and keeping the one that minimizes the
+     * objective. The job's memory traffic belongs to its offloadable kernel, so each part carries
+     * the traffic of the share of the kernel it runs. Parts run as PIPELINE_STAGES pipelined
+     * stages joined by moving the offloaded share of the working set over the PIM VM's bandwidth:
+     * completion = (pim + transfer + cpu) / stages + (stages - 1) / stages * max(pim, transfer, cpu),
+     * after any work already queued on the VMs used. Charges both parts to their VMs.
+     *
+     * @return null if the registered VMs cannot run any allowed split
+     */
+    public synchronized SplitPlan splitJob(int cloudletId, int ram, long length, double memoryTraffic,
+                                           double offloadableFraction, SplitPlan.Objective objective) {
+        VmPool.Slot pim = pimPool.peek();
+        VmPool.Slot cpu = cpuPool.peek();
+        double offloadable = Math.max(0.0, Math.min(1.0, offloadableFraction));
+        double maxFraction = pim == null ? 0.0 : offloadable;
+        double minFraction = cpu == null ? 1.0 : 0.0;
+        if (minFraction > maxFraction) {
+            return null;
+        }
+
+        SplitPlan best = null;
+        double bestCost = Double.MAX_VALUE;
+        for (int step = 0; step <= SPLIT_STEPS; step++) {
+            double fraction = minFraction + (maxFraction - minFraction) * step / SPLIT_STEPS;
+            SplitPlan plan = planSplit(pim, cpu, fraction, offloadable, ram, length, memoryTraffic);
+            double cost = objective == SplitPlan.Objective.ENERGY ? plan.getEnergy() : plan.getCompletionTime();
+            if (cost < bestCost) {
+                bestCost = cost;
+                best = plan;
+            }
+            if (maxFraction == minFraction) {
+                break;
+            }
+        }
+        if (best == null) {
+            // no split has a finite cost (e.g. a VM with no MIPS): run the job whole on one pool
+            best = planSplit(pim, cpu, cpu != null ? 0.0 : maxFraction, offloadable, ram, length, memoryTraffic);
+        }
+
+        if (best.getPimLength() > 0) {
+            pimPool.assign(best.getPimLength());
+            if (trace != null) {
+                trace.recordSelection(cloudletId, ExecutionType.PIM_CODE, pim.vm.getId(), best.getPimTime());
+            }
+        }
+        if (best.getCpuLength() > 0) {
+            cpuPool.assign(best.getCpuLength());
+            if (trace != null) {
+                trace.recordSelection(cloudletId, ExecutionType.CPU_CODE, cpu.vm.getId(), best.getCpuTime());
+            }
+        }
+        if (!Log.isDisabled()) {
+            Log.printLine("Cloudlet ID: " + cloudletId + " | PIM Share: " + String.format("%.2f", best.getPimFraction()) +
+                          " | Predicted Completion: " + String.format("%.2f", best.getCompletionTime()) +
+                          " sec | Estimated Energy: " + String.format("%.2f", best.getEnergy()) + " J");
+        }
+        return best;
+    }
+
+    /**
+     * The split that offloads the given fraction of the job to the PIM slot, with its stage times,
+     * pipelined completion time and energy.
+     */
+    private static SplitPlan planSplit(VmPool.Slot pim, VmPool.Slot cpu, double fraction, double offloadable,
+                                       int ram, long length, double memoryTraffic) {
+        long pimLength = Math.round(fraction * length);
+        long cpuLength = length - pimLength;
+        double pimTraffic = offloadable > 0 ? memoryTraffic * fraction / offloadable : 0.0;
+
+        double pimTime = pimLength > 0 ? stageTime(pim.vm, pimLength, pimTraffic) : 0.0;
+        double cpuTime = cpuLength > 0 ? stageTime(cpu.vm, cpuLength, memoryTraffic - pimTraffic) : 0.0;
+        double transferTime = pimLength > 0 ? fraction * ram / transferBandwidth(pim.vm) : 0.0;
+        double bottleneck = Math.max(pimTime, Math.max(transferTime, cpuTime));
+        double start = Math.max(pimLength > 0 ? pim.readyTime() : 0.0, cpuLength > 0 ? cpu.readyTime() : 0.0);
+        double completion = start + (pimTime + transferTime + cpuTime) / PIPELINE_STAGES
+                + (PIPELINE_STAGES - 1.0) / PIPELINE_STAGES * bottleneck;
+        double energy = (pimLength > 0 ? pimTime * pim.watts : 0.0)
+                + (cpuLength > 0 ? cpuTime * cpu.watts : 0.0);
+        return new SplitPlan(fraction, pimLength, cpuLength,
+                pimLength > 0 ? pim.vm : null, cpuLength > 0 ? cpu.vm : null,
+                pimTime, cpuTime, transferTime, completion, energy);
+    }
+
+    /**
+     * Handles a cloudlet returned to the broker: feeds its prediction error into the threshold,
+     * releases the load it was charged with in selectVM and drops its prediction.
+     */
+    public synchronized void cloudletFinished(Cloudlet cloudlet) {
+        int cloudletId = cloudlet.getCloudletId();
+        double predictedTime = predictedTimes.get(cloudletId, -1.0);
+        if (predictedTime > 0 && cloudlet.getCloudletStatus() == Cloudlet.SUCCESS) {
+            updateThreshold(cloudlet.getActualCPUTime(), predictedTime);
+        }
+        predictedTimes.remove(cloudletId);
+        atRisk.remove(cloudletId);
+
+        int vmId = cloudlet.getVmId();
+        long length = cloudlet.getCloudletLength();
+        if (!pimPool.release(vmId, length)) {
+            cpuPool.release(vmId, length);
         }
+    }
 
-        double sum = 0;
-        for (double e : recentErrors) {
-            sum += e;
+    /**
+     * Undoes selectVM for a cloudlet that was not sent after all: releases the load charged to the
+     * VM and drops its prediction.
+     */
+    public synchronized void cloudletDropped(int cloudletId, int vmId, long length) {
+        predictedTimes.remove(cloudletId);
+        atRisk.remove(cloudletId);
+        if (!pimPool.release(vmId, length)) {
+            cpuPool.release(vmId, length);
         }
-        double avgError = sum / recentErrors.size();
+    }
+
+    /**
+     * Handles a returned batch of small jobs: releases the batch's load and drops its jobs'
+     * predictions. The jobs did not run on their own, so they do not feed the threshold.
+     */
+    public synchronized void batchFinished(Cloudlet batch, List<? extends Cloudlet> jobs) {
+        for (Cloudlet job : jobs) {
+            predictedTimes.remove(job.getCloudletId());
+            atRisk.remove(job.getCloudletId());
+        }
+        int vmId = batch.getVmId();
+        long length = batch.getCloudletLength();
+        if (!pimPool.release(vmId, length)) {
+            cpuPool.release(vmId, length);
+        }
+    }
+
+    /**
+     * Updates the threshold dynamically based on prediction error feedback. The error window is a
+     * ring with a running sum, so each update is O(1). Non-positive actual times are ignored.
+     */
+    public synchronized void updateThreshold(double actualTime, double predictedTime) {
+        if (actualTime <= 0) {
+            return;
+        }
+        double error = Math.abs(actualTime - predictedTime) / actualTime;
+        if (errorCount < ERROR_WINDOW) {
+            recentErrors[(oldestError + errorCount) % ERROR_WINDOW] = error;
+            errorCount++;
+        } else {
+            errorSum -= recentErrors[oldestError]; // remove oldest
+            recentErrors[oldestError] = error;
+            oldestError = (oldestError + 1) % ERROR_WINDOW;
+        }
+        errorSum += error;
+        double avgError = errorSum / errorCount;
 
         if (avgError > 0.2 && threshold < MAX_THRESHOLD) {
             threshold += ADJUST_STEP;
-            Log.printLine("Threshold increased to: " + threshold);
+            if (!Log.isDisabled()) {
+                Log.printLine("Threshold increased to: " + threshold);
+            }
         } else if (avgError < 0.05 && threshold > MIN_THRESHOLD) {
             threshold -= ADJUST_STEP;
-            Log.printLine("Threshold decreased to: " + threshold);
+            if (!Log.isDisabled()) {
+                Log.printLine("Threshold decreased to: " + threshold);
+            }
         }
     }
 
-    public static void savePredictedTime(int cloudletId, double predictedTime) {
+    public synchronized void savePredictedTime(int cloudletId, double predictedTime) {
         predictedTimes.put(cloudletId, predictedTime);
     }
 
-    public static double getPredictedTime(int cloudletId) {
-        return predictedTimes.getOrDefault(cloudletId, -1.0);
+    /**
+     * Returns the stored prediction for a cloudlet, or -1 if it was never classified or has finished.
+     */
+    public synchronized double getPredictedTime(int cloudletId) {
+        return predictedTimes.get(cloudletId, -1.0);
     }
 
-    public static double getCurrentThreshold() {
+    public synchronized double getCurrentThreshold() {
         return threshold;
     }
-}
\ No newline at end of file
+
+    /**
+     * Attaches a decision trace, or detaches it when null. Without a trace no records are kept.
+     */
+    public synchronized void setTrace(DecisionTrace trace) {
+        this.trace = trace;
+    }
+
+    public synchronized DecisionTrace getTrace() {
+        return trace;
+    }
+
+    /**
+     * Attaches a cache of measured job profiles used by classifyJob, or detaches it when null.
+     */
+    public synchronized void setProfileCache(ProfileCache profileCache) {
+        this.profileCache = profileCache;
+    }
+
+    public synchronized ProfileCache getProfileCache() {
+        return profileCache;
+    }
+
+    /**
+     * Attaches a runtime model trained on earlier runs, used for predicted times when no profile
+     * applies, or detaches it when null.
+     */
+    public synchronized void setPredictor(RuntimePredictor predictor) {
+        this.predictor = predictor;
+    }
+
+    public synchronized RuntimePredictor getPredictor() {
+        return predictor;
+    }
+
+    /**
+     * The predictor's run time for the job, or -1 without a predictor or a model for the type.
+     */
+    private double modelTime(ExecutionType type, int ram, long length, double mips) {
+        return predictor == null ? -1.0 : predictor.predict(type, length, ram, mips);
+    }
+
+    /**
+     * MIPS of the least-loaded VM of the type, or 0 when none is registered.
+     */
+    private double poolMips(ExecutionType type) {
+        VmPool.Slot slot = poolFor(type).peek();
+        return slot == null ? 0.0 : slot.capacity;
+    }
+
+    /**
+     * Power the host draws while the VM keeps its share of the host's MIPS busy.
+     */
+    private static double estimateWatts(Vm vm, Host host) {
+        if (!(host instanceof PowerHost)) {
+            return ASSUMED_POWER;
+        }
+        double utilization = vm.getMips() * vm.getNumberOfPes() / host.getTotalMips();
+        return PowerTable.forModel(((PowerHost) host).getPowerModel()).getPower(utilization);
+    }
+
+    /**
+     * The pool's least-loaded slot unless its host is memory-bound hot; then the slot among the
+     * least-loaded few that would finish the cloudlet first, given each host's slowdown.
+     */
+    private static VmPool.Slot coolestSlot(VmPool pool, long length, double traffic) {
+        VmPool.Slot head = pool.peek();
+        if (head == null || memorySlowdown(head.vm) >= 1.0) {
+            return head;
+        }
+
+        VmPool.Slot best = null;
+        double bestFinish = Double.MAX_VALUE;
+        Iterator<VmPool.Slot> slots = pool.iterator();
+        for (int i = 0; i < HOT_HOST_CANDIDATES && slots.hasNext(); i++) {
+            VmPool.Slot slot = slots.next();
+            double finish = expectedFinish(slot, length, traffic);
+            if (finish < bestFinish) {
+                bestFinish = finish;
+                best = slot;
+            }
+        }
+        return best;
+    }
+
+    /**
+     * Seconds until the slot's VM would finish its queued work and then a cloudlet of this length and
+     * memory traffic, which runs at the rate the VM's memory model gives it.
+     */
+    private static double expectedFinish(VmPool.Slot slot, long length, double traffic) {
+        double share = 1.0;
+        Vm vm = slot.vm;
+        if (length > 0 && vm.getMips() > 0 && vm.getCloudletScheduler() instanceof CloudletSchedulerMemoryBound) {
+            share = ((CloudletSchedulerMemoryBound) vm.getCloudletScheduler())
+                    .getExecutionRate(length, traffic, vm.getMips()) / vm.getMips();
+        }
+        double rate = slot.capacity * memorySlowdown(vm);
+        return slot.pendingLength / rate + length / (rate * share);
+    }
+
+    /**
+     * Contention factor of the memory channels of the VM's host, 1 if they are not modelled.
+     */
+    private static double memorySlowdown(Vm vm) {
+        Host host = vm.getHost();
+        if (host instanceof PimHost && ((PimHost) host).getMemoryChannels() != null) {
+            return ((PimHost) host).getMemoryChannels().getContentionFactor();
+        }
+        return 1.0;
+    }
+
+    /**
+     * Seconds a single-PE part of the given length and memory traffic takes on the VM, using the
+     * VM's memory model when it has one.
+     */
+    private static double stageTime(Vm vm, long length, double traffic) {
+        double rate = vm.getMips();
+        if (vm.getCloudletScheduler() instanceof CloudletSchedulerMemoryBound) {
+            rate = ((CloudletSchedulerMemoryBound) vm.getCloudletScheduler()).getExecutionRate(length, traffic, rate);
+        }
+        return length / rate;
+    }
+
+    /**
+     * Bandwidth between host and PIM memory for the VM: what its host's BwProvisioner granted it,
+     * or the VM's requested bandwidth before placement.
+     */
+    private static double transferBandwidth(Vm vm) {
+        Host host = vm.getHost();
+        long bw = host == null ? 0 : host.getBwProvisioner().getAllocatedBwForVm(vm);
+        if (bw <= 0) {
+            bw = vm.getBw();
+        }
+        return bw > 0 ? bw : Double.POSITIVE_INFINITY;
+    }
+
+    private VmPool poolFor(ExecutionType type) {
+        return type == ExecutionType.PIM ? pimPool : cpuPool;
+    }
+}
@@ -0,0 +1,61 @@
+package scheduler;
+
+import org.cloudbus.cloudsim.power.models.PowerModel;
+
+import java.util.Collections;
+import java.util.Map;
+import java.util.WeakHashMap;
+
+/**
+ * A {@link PowerModel} sampled once at every whole percent of utilization. Lookups interpolate
+ * linearly between samples, so estimating power costs two array reads instead of a model call.
+ * Tables are shared between all hosts that use the same model instance. Zero utilization maps to
+ * the model's idle power.
+ */
+public class PowerTable {
+
+    public static final int STEPS = 100;
+
+    private static final Map<PowerModel, PowerTable> TABLES =
+            Collections.synchronizedMap(new WeakHashMap<PowerModel, PowerTable>());
+
+    private final double[] watts = new double[STEPS + 1];
+
+    private PowerTable(PowerModel model) {
+        // CloudSim models give 0 W at exactly 0 utilization (host switched off); a running host that
+        // is idle draws its idle power, so row 0 samples the model just above zero
+        watts[0] = model.getPower(Double.MIN_VALUE);
+        for (int i = 1; i <= STEPS; i++) {
+            watts[i] = model.getPower((double) i / STEPS);
+        }
+    }
+
+    /**
+     * Returns the table for a power model, building it on first use.
+     */
+    public static PowerTable forModel(PowerModel model) {
+        synchronized (TABLES) {
+            PowerTable table = TABLES.get(model);
+            if (table == null) {
+                table = new PowerTable(model);
+                TABLES.put(model, table);
+            }
+            return table;
+        }
+    }
+
+    /**
+     * Power in watts at the given utilization, clamped to [0, 1].
+     */
+    public double getPower(double utilization) {
+        if (utilization <= 0) {
+            return watts[0];
+        }
+        double position = Math.min(utilization, 1.0) * STEPS;
+        int step = (int) position;
+        if (step >= STEPS) {
+            return watts[STEPS];
+        }
+        return watts[step] + (watts[step + 1] - watts[step]) * (position - step);
+    }
+}
@@ -0,0 +1,116 @@
+package scheduler;
+
+import java.util.Arrays;
+
+/**
+ * Open-addressing map from cloudlet id to predicted execution time, stored in primitive arrays
+ * with linear probing. Entries are meant to be removed once a cloudlet completes; the table grows
+ * and shrinks with the number of entries, so its footprint follows the in-flight jobs rather than
+ * every job ever classified.
+ */
+class PredictionStore {
+
+    private static final int EMPTY = Integer.MIN_VALUE;
+    private static final int MIN_CAPACITY = 16;
+
+    private int[] keys;
+    private double[] values;
+    private int size;
+
+    PredictionStore() {
+        allocate(MIN_CAPACITY);
+    }
+
+    void put(int cloudletId, double predictedTime) {
+        if (cloudletId == EMPTY) {
+            throw new IllegalArgumentException("Cloudlet id " + EMPTY + " is reserved");
+        }
+        int slot = find(cloudletId);
+        if (keys[slot] == cloudletId) {
+            values[slot] = predictedTime;
+            return;
+        }
+        keys[slot] = cloudletId;
+        values[slot] = predictedTime;
+        size++;
+        if (size * 4 > keys.length * 3) {
+            rehash(keys.length * 2);
+        }
+    }
+
+    double get(int cloudletId, double defaultValue) {
+        int slot = find(cloudletId);
+        return keys[slot] == cloudletId && cloudletId != EMPTY ? values[slot] : defaultValue;
+    }
+
+    /**
+     * Removes a prediction, shifting later entries of the probe chain back so lookups stay
+     * tombstone-free.
+     *
+     * @return false if there was no prediction for the cloudlet
+     */
+    boolean remove(int cloudletId) {
+        int slot = find(cloudletId);
+        if (keys[slot] != cloudletId || cloudletId == EMPTY) {
+            return false;
+        }
+
+        int mask = keys.length - 1;
+        int hole = slot;
+        int next = (hole + 1) & mask;
+        while (keys[next] != EMPTY) {
+            int home = hash(keys[next]) & mask;
+            // move the entry into the hole unless its home lies cyclically in (hole, next]
+            if (((next - home) & mask) >= ((next - hole) & mask)) {
+                keys[hole] = keys[next];
+                values[hole] = values[next];
+                hole = next;
+            }
+            next = (next + 1) & mask;
+        }
+        keys[hole] = EMPTY;
+        size--;
+
+        if (keys.length > MIN_CAPACITY && size * 8 < keys.length) {
+            rehash(keys.length / 2);
+        }
+        return true;
+    }
+
+    int size() {
+        return size;
+    }
+
+    private int find(int cloudletId) {
+        int mask = keys.length - 1;
+        int slot = hash(cloudletId) & mask;
+        while (keys[slot] != EMPTY && keys[slot] != cloudletId) {
+            slot = (slot + 1) & mask;
+        }
+        return slot;
+    }
+
+    private void rehash(int capacity) {
+        int[] oldKeys = keys;
+        double[] oldValues = values;
+        allocate(capacity);
+        for (int i = 0; i < oldKeys.length; i++) {
+            if (oldKeys[i] != EMPTY) {
+                int slot = find(oldKeys[i]);
+                keys[slot] = oldKeys[i];
+                values[slot] = oldValues[i];
+            }
+        }
+    }
+
+    private void allocate(int capacity) {
+        keys = new int[capacity];
+        values = new double[capacity];
+        Arrays.fill(keys, EMPTY);
+    }
+
+    private static int hash(int key) {
+        int h = key * 0x9E3779B9;
+        return h ^ (h >>> 16);
+    }
+}
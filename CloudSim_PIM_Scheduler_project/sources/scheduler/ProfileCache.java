@@ -0,0 +1,54 @@
+package scheduler;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Bounded LRU cache of {@link JobProfile}s keyed by job signature. A signature is the pair of
+ * length and RAM buckets a job falls into, so recurring job shapes reuse one profiling run.
+ */
+public class ProfileCache {
+
+    public static final long DEFAULT_LENGTH_BUCKET = 50000;
+    public static final int DEFAULT_RAM_BUCKET = 512;
+
+    private final long lengthBucket;
+    private final int ramBucket;
+    private final Map<Long, JobProfile> profiles;
+
+    public ProfileCache(int capacity) {
+        this(capacity, DEFAULT_LENGTH_BUCKET, DEFAULT_RAM_BUCKET);
+    }
+
+    public ProfileCache(final int capacity, long lengthBucket, int ramBucket) {
+        if (capacity <= 0 || lengthBucket <= 0 || ramBucket <= 0) {
+            throw new IllegalArgumentException("Cache capacity and bucket sizes must be positive");
+        }
+        this.lengthBucket = lengthBucket;
+        this.ramBucket = ramBucket;
+        this.profiles = new LinkedHashMap<Long, JobProfile>(16, 0.75f, true) {
+            private static final long serialVersionUID = 1L;
+
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Long, JobProfile> eldest) {
+                return size() > capacity;
+            }
+        };
+    }
+
+    public long signature(int ram, long length) {
+        return ((length / lengthBucket) << 32) | (ram / ramBucket);
+    }
+
+    public synchronized JobProfile get(int ram, long length) {
+        return profiles.get(signature(ram, length));
+    }
+
+    public synchronized void put(long signature, JobProfile profile) {
+        profiles.put(signature, profile);
+    }
+
+    public synchronized int size() {
+        return profiles.size();
+    }
+}
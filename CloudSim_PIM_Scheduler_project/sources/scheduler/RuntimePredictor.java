@@ -0,0 +1,216 @@
+package scheduler;
+
+import pimsim.ExecutionType;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.BufferedReader;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.FileReader;
+import java.io.IOException;
+
+/**
+ * Runtime model trained offline from earlier result CSVs. For each VM type it holds a linear
+ * regression of run time on the features (1, length / mips, ram), fitted by least squares, so a
+ * prediction is a handful of multiply-adds.
+ *
+ * Training reads the CSV columns Type, ActualTime, Length, Ram and Mips by header name; rows of
+ * failed cloudlets (non-positive ActualTime) are skipped. A type with fewer samples than features
+ * gets no model, and predict returns -1 for it so the caller can fall back to its own estimate.
+ *
+ * The model file is big-endian: a byte type count, then per type a byte {@link ExecutionType}
+ * code, an int sample count, a double mean MIPS and the three coefficients as doubles.
+ */
+public class RuntimePredictor {
+
+    private static final int FEATURES = 3;
+    private static final int TYPES = ExecutionType.values().length;
+    private static final double RIDGE = 1e-9; // keeps the normal equations solvable when a feature is constant
+
+    private final double[][] coefficients = new double[TYPES][];
+    private final double[] meanMips = new double[TYPES];
+    private final int[] samples = new int[TYPES];
+
+    /**
+     * Fits a model to the rows of the given result CSVs.
+     */
+    public static RuntimePredictor train(String... csvFiles) throws IOException {
+        double[][][] xtx = new double[TYPES][FEATURES][FEATURES];
+        double[][] xty = new double[TYPES][FEATURES];
+        double[] mipsSum = new double[TYPES];
+        int[] count = new int[TYPES];
+        double[] x = new double[FEATURES];
+
+        for (String csvFile : csvFiles) {
+            try (BufferedReader reader = new BufferedReader(new FileReader(csvFile))) {
+                String header = reader.readLine();
+                if (header == null) {
+                    continue;
+                }
+                String[] columns = header.split(",");
+                int typeCol = column(columns, "Type", csvFile);
+                int timeCol = column(columns, "ActualTime", csvFile);
+                int lengthCol = column(columns, "Length", csvFile);
+                int ramCol = column(columns, "Ram", csvFile);
+                int mipsCol = column(columns, "Mips", csvFile);
+
+                String line;
+                while ((line = reader.readLine()) != null) {
+                    String[] fields = line.split(",");
+                    if (fields.length < columns.length || "null".equals(fields[typeCol])) {
+                        continue;
+                    }
+                    double time = Double.parseDouble(fields[timeCol]);
+                    double mips = Double.parseDouble(fields[mipsCol]);
+                    if (time <= 0 || mips <= 0) {
+                        continue;
+                    }
+                    int t = ExecutionType.valueOf(fields[typeCol]).ordinal();
+                    features(Double.parseDouble(fields[lengthCol]), Double.parseDouble(fields[ramCol]), mips, x);
+                    for (int i = 0; i < FEATURES; i++) {
+                        for (int j = 0; j < FEATURES; j++) {
+                            xtx[t][i][j] += x[i] * x[j];
+                        }
+                        xty[t][i] += x[i] * time;
+                    }
+                    mipsSum[t] += mips;
+                    count[t]++;
+                }
+            }
+        }
+
+        RuntimePredictor predictor = new RuntimePredictor();
+        for (int t = 0; t < TYPES; t++) {
+            if (count[t] >= FEATURES) {
+                predictor.coefficients[t] = solve(xtx[t], xty[t]);
+                predictor.meanMips[t] = mipsSum[t] / count[t];
+                predictor.samples[t] = count[t];
+            }
+        }
+        return predictor;
+    }
+
+    /**
+     * Predicted run time of a job on a VM of the given type and MIPS, or -1 if the type has no
+     * model. A non-positive mips uses the mean MIPS of that type's training rows.
+     */
+    public double predict(ExecutionType type, long length, int ram, double mips) {
+        double[] c = coefficients[type.ordinal()];
+        if (c == null) {
+            return -1.0;
+        }
+        if (mips <= 0) {
+            mips = meanMips[type.ordinal()];
+        }
+        double time = c[0] + c[1] * (length / mips) + c[2] * ram;
+        return time > 0 ? time : -1.0;
+    }
+
+    public boolean hasModel(ExecutionType type) {
+        return coefficients[type.ordinal()] != null;
+    }
+
+    /** Number of training rows behind the type's model. */
+    public int getSampleCount(ExecutionType type) {
+        return samples[type.ordinal()];
+    }
+
+    public void save(String fileName) throws IOException {
+        byte models = 0;
+        for (double[] c : coefficients) {
+            if (c != null) {
+                models++;
+            }
+        }
+        try (DataOutputStream out = new DataOutputStream(
+                new BufferedOutputStream(new FileOutputStream(fileName)))) {
+            out.writeByte(models);
+            for (int t = 0; t < TYPES; t++) {
+                if (coefficients[t] != null) {
+                    out.writeByte(t);
+                    out.writeInt(samples[t]);
+                    out.writeDouble(meanMips[t]);
+                    for (double c : coefficients[t]) {
+                        out.writeDouble(c);
+                    }
+                }
+            }
+        }
+    }
+
+    public static RuntimePredictor load(String fileName) throws IOException {
+        RuntimePredictor predictor = new RuntimePredictor();
+        try (DataInputStream in = new DataInputStream(
+                new BufferedInputStream(new FileInputStream(fileName)))) {
+            int models = in.readByte();
+            for (int m = 0; m < models; m++) {
+                int t = ExecutionType.fromCode(in.readByte()).ordinal();
+                predictor.samples[t] = in.readInt();
+                predictor.meanMips[t] = in.readDouble();
+                double[] c = new double[FEATURES];
+                for (int i = 0; i < FEATURES; i++) {
+                    c[i] = in.readDouble();
+                }
+                predictor.coefficients[t] = c;
+            }
+        }
+        return predictor;
+    }
+
+    private static void features(double length, double ram, double mips, double[] x) {
+        x[0] = 1.0;
+        x[1] = length / mips;
+        x[2] = ram;
+    }
+
+    private static int column(String[] columns, String name, String csvFile) {
+        for (int i = 0; i < columns.length; i++) {
+            if (columns[i].trim().equals(name)) {
+                return i;
+            }
+        }
+        throw new IllegalArgumentException(csvFile + " has no " + name + " column");
+    }
+
+    /**
+     * Solves the normal equations a * c = b by Gaussian elimination with partial pivoting.
+     */
+    private static double[] solve(double[][] a, double[] b) {
+        int n = b.length;
+        double[][] m = new double[n][n + 1];
+        for (int i = 0; i < n; i++) {
+            System.arraycopy(a[i], 0, m[i], 0, n);
+            m[i][i] += RIDGE * Math.max(a[i][i], 1.0);
+            m[i][n] = b[i];
+        }
+        for (int col = 0; col < n; col++) {
+            int pivot = col;
+            for (int row = col + 1; row < n; row++) {
+                if (Math.abs(m[row][col]) > Math.abs(m[pivot][col])) {
+                    pivot = row;
+                }
+            }
+            double[] swap = m[col];
+            m[col] = m[pivot];
+            m[pivot] = swap;
+            for (int row = col + 1; row < n; row++) {
+                double f = m[row][col] / m[col][col];
+                for (int k = col; k <= n; k++) {
+                    m[row][k] -= f * m[col][k];
+                }
+            }
+        }
+        double[] c = new double[n];
+        for (int i = n - 1; i >= 0; i--) {
+            double sum = m[i][n];
+            for (int k = i + 1; k < n; k++) {
+                sum -= m[i][k] * c[k];
+            }
+            c[i] = sum / m[i][i];
+        }
+        return c;
+    }
+}
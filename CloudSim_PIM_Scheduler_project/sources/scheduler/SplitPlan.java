@@ -0,0 +1,92 @@
+package scheduler;
+
+import org.cloudbus.cloudsim.Vm;
+
+/**
+ * How a hybrid job is divided between a PIM VM and a CPU VM: the fraction of its length offloaded
+ * to PIM, the VMs running each part, and the predicted completion time and energy of the split.
+ * A VM is null when its part is empty.
+ */
+public class SplitPlan {
+
+    /**
+     * What {@link PIMScheduler#splitJob} minimizes when it picks the split.
+     */
+    public enum Objective {
+        COMPLETION_TIME,
+        ENERGY
+    }
+
+    private final double pimFraction;
+    private final long pimLength;
+    private final long cpuLength;
+    private final Vm pimVm;
+    private final Vm cpuVm;
+    private final double pimTime;
+    private final double cpuTime;
+    private final double transferTime;
+    private final double completionTime;
+    private final double energy;
+
+    SplitPlan(double pimFraction, long pimLength, long cpuLength, Vm pimVm, Vm cpuVm, double pimTime,
+              double cpuTime, double transferTime, double completionTime, double energy) {
+        this.pimFraction = pimFraction;
+        this.pimLength = pimLength;
+        this.cpuLength = cpuLength;
+        this.pimVm = pimVm;
+        this.cpuVm = cpuVm;
+        this.pimTime = pimTime;
+        this.cpuTime = cpuTime;
+        this.transferTime = transferTime;
+        this.completionTime = completionTime;
+        this.energy = energy;
+    }
+
+    /** Share of the job's length that runs on the PIM VM, between 0 and the offloadable fraction. */
+    public double getPimFraction() {
+        return pimFraction;
+    }
+
+    /** Length in MI of the part that runs on the PIM VM. */
+    public long getPimLength() {
+        return pimLength;
+    }
+
+    /** Length in MI of the part that runs on the CPU VM. */
+    public long getCpuLength() {
+        return cpuLength;
+    }
+
+    public Vm getPimVm() {
+        return pimVm;
+    }
+
+    public Vm getCpuVm() {
+        return cpuVm;
+    }
+
+    /** Predicted run time of the PIM part on its own. */
+    public double getPimTime() {
+        return pimTime;
+    }
+
+    /** Predicted run time of the CPU part on its own. */
+    public double getCpuTime() {
+        return cpuTime;
+    }
+
+    /** Time to move the offloaded part's data between host and PIM memory. */
+    public double getTransferTime() {
+        return transferTime;
+    }
+
+    /** Predicted time from dispatch until both parts have finished, including queued work. */
+    public double getCompletionTime() {
+        return completionTime;
+    }
+
+    /** Predicted energy in joules drawn by both VMs while running their parts. */
+    public double getEnergy() {
+        return energy;
+    }
+}
@@ -0,0 +1,157 @@
+package scheduler;
+
+import org.cloudbus.cloudsim.Vm;
+
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.TreeSet;
+
+/**
+ * Priority index over the VMs of one type, ordered by the time each VM would be free if it ran
+ * all work assigned to it so far, then by its power draw and id. Picking the least-loaded VM and
+ * accounting a new or finished cloudlet are O(log V).
+ */
+class VmPool {
+
+    private static final Comparator<Slot> ORDER = new Comparator<Slot>() {
+        @Override
+        public int compare(Slot a, Slot b) {
+            int cmp = Double.compare(a.readyTime(), b.readyTime());
+            if (cmp == 0) {
+                cmp = Double.compare(a.watts, b.watts);
+            }
+            if (cmp == 0) {
+                cmp = Integer.compare(a.vm.getId(), b.vm.getId());
+            }
+            return cmp;
+        }
+    };
+
+    private final TreeSet<Slot> index = new TreeSet<>(ORDER);
+    private final Map<Integer, Slot> slotsByVmId = new HashMap<>();
+
+    /**
+     * Adds a VM to the pool with no pending work.
+     */
+    void add(Vm vm, double watts) {
+        Slot slot = new Slot(vm, watts);
+        Slot previous = slotsByVmId.put(vm.getId(), slot);
+        if (previous != null) {
+            index.remove(previous);
+        }
+        index.add(slot);
+    }
+
+    /**
+     * The least-loaded VM's slot, without charging anything to it; null if the pool is empty.
+     */
+    Slot peek() {
+        return index.isEmpty() ? null : index.first();
+    }
+
+    /**
+     * Charges a cloudlet of the given length to the least-loaded VM and returns that VM's slot.
+     */
+    Slot assign(long length) {
+        Slot slot = index.pollFirst();
+        if (slot == null) {
+            return null;
+        }
+        slot.pendingLength += length;
+        index.add(slot);
+        return slot;
+    }
+
+    /**
+     * Charges a cloudlet of the given length to a particular slot of this pool.
+     */
+    Slot assign(Slot slot, long length) {
+        if (slot == null) {
+            return null;
+        }
+        index.remove(slot);
+        slot.pendingLength += length;
+        index.add(slot);
+        return slot;
+    }
+
+    /**
+     * Slots from least to most loaded. Must not be used while the pool is modified.
+     */
+    Iterator<Slot> iterator() {
+        return index.iterator();
+    }
+
+    /**
+     * Removes a finished cloudlet's length from the VM it ran on.
+     *
+     * @return false if the VM does not belong to this pool
+     */
+    boolean release(int vmId, long length) {
+        Slot slot = slotsByVmId.get(vmId);
+        if (slot == null) {
+            return false;
+        }
+        index.remove(slot);
+        slot.pendingLength = Math.max(0.0, slot.pendingLength - length);
+        index.add(slot);
+        return true;
+    }
+
+    /**
+     * Takes a VM out of the pool, e.g. when it could not be created.
+     *
+     * @return false if the VM does not belong to this pool
+     */
+    boolean remove(int vmId) {
+        Slot slot = slotsByVmId.remove(vmId);
+        if (slot == null) {
+            return false;
+        }
+        index.remove(slot);
+        return true;
+    }
+
+    /**
+     * Changes the power draw of a VM, e.g. once the host it runs on is known.
+     *
+     * @return false if the VM does not belong to this pool
+     */
+    boolean updateWatts(int vmId, double watts) {
+        Slot slot = slotsByVmId.get(vmId);
+        if (slot == null) {
+            return false;
+        }
+        index.remove(slot);
+        slot.watts = watts;
+        index.add(slot);
+        return true;
+    }
+
+    int size() {
+        return index.size();
+    }
+
+    /**
+     * A VM together with the work currently charged to it. Mutated only while out of the index.
+     */
+    static final class Slot {
+        final Vm vm;
+        final double capacity;
+        double watts;
+        double pendingLength;
+
+        Slot(Vm vm, double watts) {
+            this.vm = vm;
+            this.watts = watts;
+            this.capacity = vm.getMips() * vm.getNumberOfPes();
+        }
+
+        /** Seconds until all pending work on this VM completes. */
+        double readyTime() {
+            return pendingLength / capacity;
+        }
+    }
+}
@@ -0,0 +1,260 @@
+/*
+ * Title:        CloudSim Toolkit
+ * Description:  CloudSim (Cloud Simulation) Toolkit for Modeling and Simulation of Clouds
+ * Licence:      GPL - http://www.gnu.org/copyleft/gpl.html
+ *
+ * Copyright (c) 2009-2012, The University of Melbourne, Australia
+ */
+
+package org.cloudbus.cloudsim.core;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Calendar;
+import java.util.List;
+
+import org.cloudbus.cloudsim.Log;
+import org.cloudbus.cloudsim.core.predicates.PredicateType;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Checks that running only the active entities in each clock tick delivers the same events, at the
+ * same times and in the same order, as running every entity in each tick did. Entities woken during
+ * the entity loop run in the same tick if their id is higher than the waking entity's and in the
+ * next tick otherwise, as before.
+ */
+public class CloudSimActiveEntitiesTest {
+
+	private static final int TICK = 1;
+
+	private static final int WORK = 2;
+
+	private static final int WAKE = 3;
+
+	private static final int NEVER = 4;
+
+	private static final double END = 40.0;
+
+	/** The number of the clock tick being run. */
+	private static int tick;
+
+	@Before
+	public void setUp() {
+		Log.disable();
+	}
+
+	@Test
+	public void traceMatchesTheAllEntitiesLoop() {
+		List<String> active = runScenario(false);
+		List<String> all = runScenario(true);
+
+		assertTrue(active.size() > 100);
+		assertEquals(all, active);
+	}
+
+	@Test
+	public void wokenEntitiesRunByIdOrder() {
+		List<String> trace = runScenario(false);
+
+		// the waker sits between the two sleepers, so at each wake the sleeper with the higher id
+		// runs in the same tick and the other one in the next
+		int wakes = 0;
+		for (int i = 0; i < trace.size(); i++) {
+			String[] line = trace.get(i).split(" ");
+			if (!"waker".equals(line[2])) {
+				continue;
+			}
+			int wakeTick = Integer.parseInt(line[0]);
+			assertEquals(wakeTick, nextTickOf("sleeperHigh", trace, i));
+			assertEquals(wakeTick + 1, nextTickOf("sleeperLow", trace, i));
+			wakes++;
+		}
+		assertEquals(7, wakes);
+	}
+
+	@Test
+	public void entityAddedDuringTheLoopRuns() {
+		List<String> trace = runScenario(false);
+
+		int late = 0;
+		for (String line : trace) {
+			if (line.split(" ")[2].equals("late")) {
+				late++;
+			}
+		}
+		assertEquals(7, late);
+	}
+
+	/**
+	 * Runs the scenario tick by tick. With allEntities set, every entity is marked active before each
+	 * tick, which makes runClockTick visit all of them as it did before it tracked active entities.
+	 *
+	 * @return the events processed, as "tick time entity tag data"
+	 */
+	private static List<String> runScenario(boolean allEntities) {
+		CloudSim.init(1, Calendar.getInstance(), false);
+		List<String> trace = new ArrayList<String>();
+		Sleeper low = new Sleeper("sleeperLow", trace);
+		new Ticker("ticker1", 2, trace, low);
+		Waker waker = new Waker("waker", trace);
+		Sleeper high = new Sleeper("sleeperHigh", trace);
+		new Ticker("ticker2", 3, trace, low, high);
+		waker.sleepers = new Sleeper[] { low, high };
+
+		CloudSim.runStart();
+		tick = 0;
+		while (true) {
+			tick++;
+			if (allEntities) {
+				for (int i = 0; i < CloudSim.getNumEntities(); i++) {
+					CloudSim.activate(i);
+				}
+			}
+			if (CloudSim.runClockTick()) {
+				break;
+			}
+		}
+		CloudSim.finishSimulation();
+		return trace;
+	}
+
+	private static int nextTickOf(String name, List<String> trace, int from) {
+		for (int i = from + 1; i < trace.size(); i++) {
+			String[] line = trace.get(i).split(" ");
+			if (line[2].equals(name)) {
+				return Integer.parseInt(line[0]);
+			}
+		}
+		return -1;
+	}
+
+	/**
+	 * Records every event it processes.
+	 */
+	private abstract static class TracingEntity extends SimEntity {
+
+		final List<String> trace;
+
+		TracingEntity(String name, List<String> trace) {
+			super(name);
+			this.trace = trace;
+		}
+
+		@Override
+		public void processEvent(SimEvent ev) {
+			trace.add(tick + " " + CloudSim.clock() + " " + getName() + " " + ev.getTag() + " " + ev.getData());
+			handle(ev);
+		}
+
+		abstract void handle(SimEvent ev);
+
+		@Override
+		public void shutdownEntity() {
+		}
+
+	}
+
+	/**
+	 * Waits for an event that never comes, so the events sent to it are deferred until another
+	 * entity wakes it. Goes back to waiting once it has processed them.
+	 */
+	private static class Sleeper extends TracingEntity {
+
+		Sleeper(String name, List<String> trace) {
+			super(name, trace);
+		}
+
+		@Override
+		public void startEntity() {
+			waitForEvent(new PredicateType(NEVER));
+		}
+
+		@Override
+		void handle(SimEvent ev) {
+			if (numEventsWaiting() == 0) {
+				waitForEvent(new PredicateType(NEVER));
+			}
+		}
+
+		void wake() {
+			if (getState() == WAITING) {
+				setState(RUNNABLE);
+			}
+		}
+
+	}
+
+	/**
+	 * Sends work to its targets every period, once right away and once a time unit later.
+	 */
+	private static class Ticker extends TracingEntity {
+
+		private final double period;
+
+		private final Sleeper[] targets;
+
+		private int work;
+
+		Ticker(String name, double period, List<String> trace, Sleeper... targets) {
+			super(name, trace);
+			this.period = period;
+			this.targets = targets;
+		}
+
+		@Override
+		public void startEntity() {
+			schedule(getId(), period, TICK);
+		}
+
+		@Override
+		void handle(SimEvent ev) {
+			if (ev.getTag() != TICK) {
+				return;
+			}
+			for (Sleeper target : targets) {
+				schedule(target.getId(), 0, WORK, Integer.valueOf(work++));
+				schedule(target.getId(), 1, WORK, Integer.valueOf(work++));
+			}
+			if (CloudSim.clock() < END) {
+				schedule(getId(), period, TICK);
+			}
+		}
+
+	}
+
+	/**
+	 * Wakes the sleepers every 5 time units from inside the entity loop, and adds a ticker halfway.
+	 */
+	private static class Waker extends TracingEntity {
+
+		Sleeper[] sleepers;
+
+		Waker(String name, List<String> trace) {
+			super(name, trace);
+		}
+
+		@Override
+		public void startEntity() {
+			schedule(getId(), 5, WAKE);
+		}
+
+		@Override
+		void handle(SimEvent ev) {
+			for (Sleeper sleeper : sleepers) {
+				sleeper.wake();
+			}
+			if (CloudSim.clock() == 20) {
+				// started by the kernel once it processes the creation event
+				new Ticker("late", 3, trace, sleepers);
+			}
+			if (CloudSim.clock() < END - 5) {
+				schedule(getId(), 5, WAKE);
+			}
+		}
+
+	}
+
+}
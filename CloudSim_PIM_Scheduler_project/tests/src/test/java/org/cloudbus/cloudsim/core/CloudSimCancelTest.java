@@ -0,0 +1,169 @@
+/*
+ * Title:        CloudSim Toolkit
+ * Description:  CloudSim (Cloud Simulation) Toolkit for Modeling and Simulation of Clouds
+ * Licence:      GPL - http://www.gnu.org/copyleft/gpl.html
+ *
+ * Copyright (c) 2009-2012, The University of Melbourne, Australia
+ */
+
+package org.cloudbus.cloudsim.core;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Calendar;
+import java.util.List;
+
+import org.cloudbus.cloudsim.Log;
+import org.cloudbus.cloudsim.core.predicates.Predicate;
+import org.cloudbus.cloudsim.core.predicates.PredicateType;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Checks that events cancelled through {@link CloudSim#cancel(int, Predicate)} and
+ * {@link CloudSim#cancelAll(int, Predicate)} are never delivered, and that their tombstones are
+ * purged from the future queue once they outnumber the live events.
+ */
+public class CloudSimCancelTest {
+
+	private static final int KEEP = 1;
+
+	private static final int DROP = 2;
+
+	private FutureQueue future;
+
+	@Before
+	public void setUp() {
+		Log.disable();
+		future = new FutureQueue();
+		CloudSim.init(1, Calendar.getInstance(), false, future);
+	}
+
+	@Test
+	public void cancelAllDropsEveryMatchAndPurgesTheTombstones() {
+		CancellingEntity entity = new CancellingEntity("entity") {
+
+			@Override
+			void cancel() {
+				int before = future.size();
+				// like CloudSim 3.0, cancelAll returns false even when it cancels events
+				assertFalse(CloudSim.cancelAll(getId(), new PredicateType(DROP)));
+				assertTrue(future.size() < before);
+			}
+		};
+		double clock = CloudSim.startSimulation();
+
+		assertEquals(10, entity.received.size());
+		for (SimEvent ev : entity.received) {
+			assertEquals(KEEP, ev.getTag());
+		}
+		// the tombstones left behind do not move the clock past the last live event
+		assertEquals(10.0, clock, 0.0);
+	}
+
+	@Test
+	public void cancelDropsTheEarliestMatch() {
+		CancellingEntity entity = new CancellingEntity("entity") {
+
+			@Override
+			void cancel() {
+				SimEvent first = CloudSim.cancel(getId(), new PredicateType(DROP));
+				assertEquals(100.0, first.eventTime(), 0.0);
+				assertEquals(DROP, first.getTag());
+				assertNull(CloudSim.cancel(getId() + 1, new PredicateType(DROP)));
+			}
+		};
+		CloudSim.startSimulation();
+
+		int dropped = 0;
+		for (SimEvent ev : entity.received) {
+			if (ev.getTag() == DROP) {
+				dropped++;
+				assertTrue(ev.eventTime() > 100.0);
+			}
+		}
+		assertEquals(199, dropped);
+	}
+
+	@Test
+	public void cancelMatchesAPredicateOverTheData() {
+		CancellingEntity entity = new CancellingEntity("entity") {
+
+			@Override
+			void cancel() {
+				CloudSim.cancelAll(getId(), new Predicate() {
+
+					@Override
+					public boolean match(SimEvent ev) {
+						return ((Integer) ev.getData()) % 2 == 0;
+					}
+				});
+			}
+		};
+		CloudSim.startSimulation();
+
+		assertEquals(110, entity.received.size());
+		for (SimEvent ev : entity.received) {
+			assertEquals(1, ((Integer) ev.getData()) % 2);
+		}
+	}
+
+	@Test(timeout = 10000)
+	public void tombstonesDoNotPauseTheSimulation() {
+		CancellingEntity entity = new CancellingEntity("entity") {
+
+			@Override
+			void cancel() {
+				CloudSim.cancelAll(getId(), new PredicateType(DROP));
+				// only tombstones lie past this time, so there is nothing to pause before
+				CloudSim.pauseSimulation(50);
+			}
+		};
+		double clock = CloudSim.startSimulation();
+
+		assertFalse(CloudSim.isPaused());
+		assertEquals(10, entity.received.size());
+		assertEquals(10.0, clock, 0.0);
+	}
+
+	/**
+	 * Sends itself 10 KEEP events at times 1 to 10 and 200 DROP events at times 100 to 299, cancels
+	 * some of them and records the events it receives.
+	 */
+	private abstract static class CancellingEntity extends SimEntity {
+
+		final List<SimEvent> received = new ArrayList<SimEvent>();
+
+		CancellingEntity(String name) {
+			super(name);
+		}
+
+		abstract void cancel();
+
+		@Override
+		public void startEntity() {
+			for (int i = 1; i <= 10; i++) {
+				schedule(getId(), i, KEEP, Integer.valueOf(2 * i - 1));
+			}
+			for (int i = 0; i < 200; i++) {
+				schedule(getId(), 100 + i, DROP, Integer.valueOf(i));
+			}
+			cancel();
+		}
+
+		@Override
+		public void processEvent(SimEvent ev) {
+			received.add(ev);
+		}
+
+		@Override
+		public void shutdownEntity() {
+		}
+
+	}
+
+}
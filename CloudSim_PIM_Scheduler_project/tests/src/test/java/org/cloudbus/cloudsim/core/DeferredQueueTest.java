@@ -0,0 +1,184 @@
+/*
+ * Title:        CloudSim Toolkit
+ * Description:  CloudSim (Cloud Simulation) Toolkit for Modeling and Simulation of Clouds
+ * Licence:      GPL - http://www.gnu.org/copyleft/gpl.html
+ *
+ * Copyright (c) 2009-2012, The University of Melbourne, Australia
+ */
+
+package org.cloudbus.cloudsim.core;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+
+import org.cloudbus.cloudsim.core.predicates.PredicateType;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Checks that the mailboxes of {@link DeferredQueue} keep each entity's events in temporal order and
+ * apart from the events of other entities.
+ */
+public class DeferredQueueTest {
+
+	private DeferredQueue queue;
+
+	@Before
+	public void setUp() {
+		queue = new DeferredQueue();
+	}
+
+	@Test
+	public void selectTakesTheFirstMatchOfTheDestination() {
+		SimEvent other = add(1.0, 2, 7);
+		SimEvent a = add(1.0, 3, 5);
+		SimEvent b = add(2.0, 3, 7);
+		SimEvent c = add(3.0, 3, 7);
+
+		assertSame(b, queue.select(3, new PredicateType(7)));
+		assertSame(c, queue.select(3, new PredicateType(7)));
+		assertNull(queue.select(3, new PredicateType(7)));
+		assertSame(a, queue.select(3, CloudSim.SIM_ANY));
+		assertNull(queue.select(3, CloudSim.SIM_ANY));
+		assertSame(other, queue.select(2, CloudSim.SIM_ANY));
+		assertEquals(0, queue.size());
+	}
+
+	@Test
+	public void unknownDestinationHasNoEvents() {
+		add(1.0, 2, 7);
+		assertEquals(0, queue.count(5, CloudSim.SIM_ANY));
+		assertEquals(0, queue.count(-1, CloudSim.SIM_ANY));
+		assertNull(queue.findFirst(5, CloudSim.SIM_ANY));
+		assertNull(queue.select(100, CloudSim.SIM_ANY));
+	}
+
+	@Test
+	public void countAndFindFirstLeaveTheEvents() {
+		add(1.0, 4, 1);
+		SimEvent second = add(2.0, 4, 2);
+		add(3.0, 4, 2);
+		add(3.0, 4, 3);
+
+		assertEquals(4, queue.count(4, CloudSim.SIM_ANY));
+		assertEquals(2, queue.count(4, new PredicateType(2)));
+		assertEquals(3, queue.count(4, new PredicateType(new int[] { 2, 3 })));
+		assertSame(second, queue.findFirst(4, new PredicateType(2)));
+		assertEquals(4, queue.size());
+	}
+
+	@Test
+	public void eventsAreKeptInTemporalOrder() {
+		SimEvent late = add(5.0, 1, 0);
+		SimEvent early = add(1.0, 1, 0);
+		SimEvent tieFirst = add(3.0, 1, 0);
+		SimEvent tieSecond = add(3.0, 1, 0);
+
+		assertSame(early, queue.select(1, CloudSim.SIM_ANY));
+		assertSame(tieFirst, queue.select(1, CloudSim.SIM_ANY));
+		assertSame(tieSecond, queue.select(1, CloudSim.SIM_ANY));
+		assertSame(late, queue.select(1, CloudSim.SIM_ANY));
+	}
+
+	@Test
+	public void mailboxSurvivesManyAppendsAndPolls() {
+		int next = 0;
+		for (int round = 0; round < 50; round++) {
+			for (int i = 0; i < 20; i++) {
+				add(round * 20 + i, 0, round * 20 + i);
+			}
+			for (int i = 0; i < 15; i++) {
+				assertEquals(next++, queue.select(0, CloudSim.SIM_ANY).getTag());
+			}
+		}
+		assertEquals(50 * 5, queue.count(0, CloudSim.SIM_ANY));
+		while (queue.size() > 0) {
+			assertEquals(next++, queue.select(0, CloudSim.SIM_ANY).getTag());
+		}
+	}
+
+	@Test
+	public void iteratorVisitsMailboxesInEntityOrder() {
+		SimEvent a = add(2.0, 3, 0);
+		SimEvent b = add(1.0, 1, 0);
+		SimEvent c = add(3.0, 1, 0);
+
+		List<SimEvent> visited = new ArrayList<SimEvent>();
+		for (Iterator<SimEvent> it = queue.iterator(); it.hasNext();) {
+			visited.add(it.next());
+		}
+		assertEquals(3, visited.size());
+		assertSame(b, visited.get(0));
+		assertSame(c, visited.get(1));
+		assertSame(a, visited.get(2));
+	}
+
+	@Test
+	public void iteratorRemovesFromTheMailboxes() {
+		List<SimEvent> kept = new ArrayList<SimEvent>();
+		for (int i = 0; i < 30; i++) {
+			SimEvent event = add(i, i % 3, i);
+			if (i % 2 == 0) {
+				kept.add(event);
+			}
+		}
+		// entity 1 loses all of its events
+		for (Iterator<SimEvent> it = queue.iterator(); it.hasNext();) {
+			SimEvent event = it.next();
+			if (event.getTag() % 2 == 1 || event.getDestination() == 1) {
+				it.remove();
+			}
+		}
+		kept.removeAll(eventsOf(1, kept));
+
+		assertEquals(kept.size(), queue.size());
+		assertEquals(0, queue.count(1, CloudSim.SIM_ANY));
+		for (SimEvent event : kept) {
+			assertSame(event, queue.select(event.getDestination(), CloudSim.SIM_ANY));
+		}
+		assertEquals(0, queue.size());
+	}
+
+	@Test(expected = IllegalStateException.class)
+	public void iteratorRemovesOnlyOncePerEvent() {
+		add(1.0, 1, 0);
+		add(2.0, 1, 0);
+		Iterator<SimEvent> it = queue.iterator();
+		it.next();
+		it.remove();
+		it.remove();
+	}
+
+	@Test
+	public void clearEmptiesEveryMailbox() {
+		add(1.0, 1, 0);
+		add(1.0, 2, 0);
+		queue.clear();
+		assertEquals(0, queue.size());
+		assertFalse(queue.iterator().hasNext());
+		assertNull(queue.select(1, CloudSim.SIM_ANY));
+	}
+
+	private static List<SimEvent> eventsOf(int destination, List<SimEvent> events) {
+		List<SimEvent> of = new ArrayList<SimEvent>();
+		for (SimEvent event : events) {
+			if (event.getDestination() == destination) {
+				of.add(event);
+			}
+		}
+		return of;
+	}
+
+	private SimEvent add(double time, int destination, int tag) {
+		SimEvent event = new SimEvent(SimEvent.SEND, time, 0, destination, tag, null);
+		queue.addEvent(event);
+		return event;
+	}
+
+}
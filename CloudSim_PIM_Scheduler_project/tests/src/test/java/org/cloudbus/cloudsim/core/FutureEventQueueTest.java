@@ -0,0 +1,251 @@
+/*
+ * Title:        CloudSim Toolkit
+ * Description:  CloudSim (Cloud Simulation) Toolkit for Modeling and Simulation of Clouds
+ * Licence:      GPL - http://www.gnu.org/copyleft/gpl.html
+ *
+ * Copyright (c) 2009-2012, The University of Melbourne, Australia
+ */
+
+package org.cloudbus.cloudsim.core;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.IdentityHashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.Parameterized;
+import org.junit.runners.Parameterized.Parameters;
+
+/**
+ * Checks the ordering contract of {@link FutureEventQueue} on every implementation.
+ */
+@RunWith(Parameterized.class)
+public class FutureEventQueueTest {
+
+	private final Class<? extends FutureEventQueue> queueClass;
+
+	private FutureEventQueue queue;
+
+	/** The order in which the test added each event. */
+	private Map<SimEvent, Integer> added;
+
+	@Parameters(name = "{0}")
+	public static Collection<Object[]> queues() {
+		return Arrays.asList(new Object[][] {
+				{ FutureQueue.class },
+				{ HeapFutureQueue.class },
+				{ CalendarFutureQueue.class } });
+	}
+
+	public FutureEventQueueTest(Class<? extends FutureEventQueue> queueClass) {
+		this.queueClass = queueClass;
+	}
+
+	@Before
+	public void setUp() throws Exception {
+		queue = queueClass.newInstance();
+		added = new IdentityHashMap<SimEvent, Integer>();
+	}
+
+	@Test
+	public void emptyQueue() {
+		assertEquals(0, queue.size());
+		assertNull(queue.peek());
+		assertNull(queue.poll());
+		assertEquals(0, queue.pollBatch(new ArrayList<SimEvent>()));
+		assertFalse(queue.iterator().hasNext());
+	}
+
+	@Test
+	public void pollsInTimeThenInsertionOrder() {
+		Random random = new Random(1);
+		List<SimEvent> events = new ArrayList<SimEvent>();
+		for (int i = 0; i < 2000; i++) {
+			// few distinct times, so that many events tie
+			events.add(add(random.nextInt(200) * 0.5));
+		}
+
+		List<SimEvent> expected = sorted(events);
+		for (SimEvent event : expected) {
+			assertSame(event, queue.peek());
+			assertSame(event, queue.poll());
+		}
+		assertEquals(0, queue.size());
+	}
+
+	@Test
+	public void interleavedAddsAndPolls() {
+		Random random = new Random(2);
+		List<SimEvent> pending = new ArrayList<SimEvent>();
+		double now = 0;
+		for (int i = 0; i < 5000; i++) {
+			if (pending.isEmpty() || random.nextInt(3) > 0) {
+				// events are never scheduled in the past, as in a simulation
+				pending.add(add(now + random.nextInt(50) * 0.25));
+			} else {
+				SimEvent expected = sorted(pending).get(0);
+				SimEvent polled = queue.poll();
+				assertSame(expected, polled);
+				pending.remove(polled);
+				now = polled.eventTime();
+			}
+		}
+		assertEquals(pending.size(), queue.size());
+		for (SimEvent event : sorted(pending)) {
+			assertSame(event, queue.poll());
+		}
+	}
+
+	@Test
+	public void addEventFirstComesBeforeAddEventAtTheSameTime() {
+		SimEvent late = add(1.0);
+		SimEvent first = addFirst(1.0);
+		SimEvent second = addFirst(1.0);
+		SimEvent earlier = add(0.5);
+
+		assertSame(earlier, queue.poll());
+		assertSame(first, queue.poll());
+		assertSame(second, queue.poll());
+		assertSame(late, queue.poll());
+	}
+
+	@Test
+	public void pollBatchTakesAllEventsAtTheFirstTime() {
+		List<SimEvent> atOne = new ArrayList<SimEvent>();
+		add(2.0);
+		atOne.add(add(1.0));
+		add(3.0);
+		atOne.add(add(1.0));
+		atOne.add(0, addFirst(1.0));
+
+		List<SimEvent> batch = new ArrayList<SimEvent>();
+		assertEquals(3, queue.pollBatch(batch));
+		assertEquals(atOne, batch);
+		assertEquals(2, queue.size());
+		assertEquals(2.0, queue.peek().eventTime(), 0.0);
+	}
+
+	@Test
+	public void pollBatchDrainsALargeBurst() {
+		Random random = new Random(3);
+		List<SimEvent> burst = new ArrayList<SimEvent>();
+		List<SimEvent> rest = new ArrayList<SimEvent>();
+		for (int i = 0; i < 1000; i++) {
+			if (random.nextBoolean()) {
+				burst.add(add(5.0));
+			} else {
+				rest.add(add(5.5 + random.nextInt(100)));
+			}
+		}
+
+		List<SimEvent> batch = new ArrayList<SimEvent>();
+		assertEquals(burst.size(), queue.pollBatch(batch));
+		assertEquals(burst, batch);
+		for (SimEvent event : sorted(rest)) {
+			assertSame(event, queue.poll());
+		}
+	}
+
+	@Test
+	public void removeKeepsTheOrderOfTheOthers() {
+		Random random = new Random(4);
+		List<SimEvent> events = new ArrayList<SimEvent>();
+		for (int i = 0; i < 500; i++) {
+			events.add(add(random.nextInt(40)));
+		}
+		List<SimEvent> removed = new ArrayList<SimEvent>();
+		for (int i = 0; i < events.size(); i += 3) {
+			removed.add(events.get(i));
+		}
+		assertTrue(queue.remove(removed.get(0)));
+		assertFalse(queue.remove(removed.get(0)));
+		assertTrue(queue.removeAll(removed.subList(1, removed.size())));
+		assertFalse(queue.removeAll(removed));
+
+		List<SimEvent> kept = new ArrayList<SimEvent>(events);
+		kept.removeAll(removed);
+		assertEquals(kept.size(), queue.size());
+		for (SimEvent event : sorted(kept)) {
+			assertSame(event, queue.poll());
+		}
+	}
+
+	@Test
+	public void iteratorVisitsEveryEvent() {
+		List<SimEvent> events = new ArrayList<SimEvent>();
+		for (int i = 0; i < 100; i++) {
+			events.add(add(i % 7));
+		}
+		Map<SimEvent, Boolean> seen = new IdentityHashMap<SimEvent, Boolean>();
+		for (Iterator<SimEvent> it = queue.iterator(); it.hasNext();) {
+			assertNull(seen.put(it.next(), Boolean.TRUE));
+		}
+		assertEquals(events.size(), seen.size());
+		for (SimEvent event : events) {
+			assertTrue(seen.containsKey(event));
+		}
+	}
+
+	@Test
+	public void clearEmptiesTheQueue() {
+		for (int i = 0; i < 100; i++) {
+			add(i);
+		}
+		queue.clear();
+		assertEquals(0, queue.size());
+		assertNull(queue.poll());
+
+		SimEvent event = add(3.0);
+		assertSame(event, queue.poll());
+	}
+
+	private SimEvent add(double time) {
+		SimEvent event = newEvent(time);
+		queue.addEvent(event);
+		return event;
+	}
+
+	private SimEvent addFirst(double time) {
+		SimEvent event = newEvent(time);
+		queue.addEventFirst(event);
+		return event;
+	}
+
+	private SimEvent newEvent(double time) {
+		SimEvent event = new SimEvent(SimEvent.SEND, time, 0, 0, 0, null);
+		added.put(event, added.size());
+		return event;
+	}
+
+	/**
+	 * Sorts events by time and then by the order they were added, all with addEvent.
+	 */
+	private List<SimEvent> sorted(List<SimEvent> events) {
+		List<SimEvent> sorted = new ArrayList<SimEvent>(events);
+		Collections.sort(sorted, new Comparator<SimEvent>() {
+
+			@Override
+			public int compare(SimEvent a, SimEvent b) {
+				int byTime = Double.compare(a.eventTime(), b.eventTime());
+				return byTime != 0 ? byTime : added.get(a).compareTo(added.get(b));
+			}
+		});
+		return sorted;
+	}
+
+}
@@ -0,0 +1,153 @@
+package pimsim;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.List;
+import java.util.Properties;
+import org.cloudbus.cloudsim.Host;
+import org.cloudbus.cloudsim.power.PowerHost;
+import org.cloudbus.cloudsim.power.models.PowerModelSquare;
+import org.junit.Test;
+
+public class ClusterSpecLoaderTest {
+
+    private static final String SPEC = ""
+            + "host.classes=cpu, pim-dimm, pim-small, unused\n"
+            + "host.cpu.type=CPU\n"
+            + "host.cpu.count=3\n"
+            + "host.cpu.mips=12000\n"
+            + "host.cpu.ram=16384\n"
+            + "host.pim-dimm.type=pim\n"
+            + "host.pim-dimm.count=2\n"
+            + "host.pim-dimm.cores=2560\n"
+            + "host.pim-dimm.mips=350\n"
+            + "host.pim-dimm.ram=32768\n"
+            + "host.pim-dimm.bank.size=128\n"
+            + "host.pim-dimm.memory.bandwidth=25600\n"
+            + "host.pim-small.type=PIM\n"
+            + "host.pim-small.mips=7000\n"
+            + "host.pim-small.ram=4096\n"
+            + "host.pim-small.power.model=square\n"
+            + "host.unused.type=CPU\n"
+            + "host.unused.count=0\n"
+            + "host.unused.mips=1000\n"
+            + "host.unused.ram=1024\n";
+
+    @Test
+    public void buildsTheHostsOfEveryClass() throws IOException {
+        List<Host> hosts = new ClusterSpecLoader().load(new StringReader(SPEC));
+
+        assertEquals(6, hosts.size());
+        for (int i = 0; i < hosts.size(); i++) {
+            assertEquals(i, hosts.get(i).getId());
+        }
+        for (int i = 0; i < 3; i++) {
+            Host cpu = hosts.get(i);
+            assertTrue(cpu instanceof CpuHost);
+            assertEquals(1, cpu.getNumberOfPes());
+            assertEquals(12000, cpu.getTotalMips());
+            assertEquals(16384, cpu.getRam());
+            assertFalse(cpu.getRamProvisioner() instanceof RamProvisionerBanked);
+        }
+        assertEquals(ExecutionType.CPU, ResourceTypeIndex.typeOf(hosts.get(0)));
+        assertEquals(ExecutionType.PIM, ResourceTypeIndex.typeOf(hosts.get(3)));
+    }
+
+    @Test
+    public void multiCoreClassesGetOnePeGroup() throws IOException {
+        List<Host> hosts = new ClusterSpecLoader().load(new StringReader(SPEC));
+
+        Host dimm = hosts.get(3);
+        assertEquals(1, dimm.getPeList().size());
+        assertTrue(dimm.getPeList().get(0) instanceof PeGroup);
+        assertEquals(2560, dimm.getNumberOfPes());
+        assertEquals(2560 * 350, dimm.getTotalMips());
+
+        Host small = hosts.get(5);
+        assertFalse(small.getPeList().get(0) instanceof PeGroup);
+        assertEquals(1, small.getNumberOfPes());
+    }
+
+    @Test
+    public void pimHostsGetBankedRamAndMemoryChannels() throws IOException {
+        List<Host> hosts = new ClusterSpecLoader().load(new StringReader(SPEC));
+
+        RamProvisionerBanked dimmRam = (RamProvisionerBanked) hosts.get(3).getRamProvisioner();
+        assertEquals(128, dimmRam.getBankSize());
+        assertEquals(32768 / 128, dimmRam.getBankCount());
+        assertEquals(RamProvisionerBanked.DEFAULT_BANK_MIPS, dimmRam.getBankMips(), 0.0);
+        assertEquals(25600, ((PimHost) hosts.get(3)).getMemoryChannels().getBandwidth(), 0.0);
+        // each host gets its own provisioner and channels
+        assertNotSame(dimmRam, hosts.get(4).getRamProvisioner());
+        assertNotSame(((PimHost) hosts.get(3)).getMemoryChannels(),
+                ((PimHost) hosts.get(4)).getMemoryChannels());
+
+        RamProvisionerBanked smallRam = (RamProvisionerBanked) hosts.get(5).getRamProvisioner();
+        assertEquals(RamProvisionerBanked.DEFAULT_BANK_SIZE, smallRam.getBankSize());
+        assertNull(((PimHost) hosts.get(5)).getMemoryChannels());
+    }
+
+    @Test
+    public void equalPowerModelsAreShared() throws IOException {
+        List<Host> hosts = new ClusterSpecLoader().load(new StringReader(SPEC));
+
+        PowerHost cpu = (PowerHost) hosts.get(0);
+        PowerHost dimm = (PowerHost) hosts.get(3);
+        PowerHost small = (PowerHost) hosts.get(5);
+        assertSame(cpu.getPowerModel(), ((PowerHost) hosts.get(2)).getPowerModel());
+        assertSame(dimm.getPowerModel(), ((PowerHost) hosts.get(4)).getPowerModel());
+        assertNotSame(cpu.getPowerModel(), dimm.getPowerModel());
+        assertTrue(small.getPowerModel() instanceof PowerModelSquare);
+
+        // defaults: 250/200 W for CPU, 120/80 W for PIM
+        assertEquals(250, cpu.getPowerModel().getPower(1.0), 1e-9);
+        assertEquals(200, cpu.getPowerModel().getPower(Double.MIN_VALUE), 1e-6);
+        assertEquals(120, dimm.getPowerModel().getPower(1.0), 1e-9);
+        assertEquals(80, dimm.getPowerModel().getPower(Double.MIN_VALUE), 1e-6);
+    }
+
+    @Test
+    public void classesWithTheSameModelParametersShareIt() {
+        Properties spec = new Properties();
+        spec.setProperty("host.classes", "a,b");
+        spec.setProperty("host.a.type", "PIM");
+        spec.setProperty("host.a.mips", "1000");
+        spec.setProperty("host.a.ram", "1024");
+        spec.setProperty("host.b.type", "PIM");
+        spec.setProperty("host.b.mips", "2000");
+        spec.setProperty("host.b.ram", "2048");
+
+        List<Host> hosts = new ClusterSpecLoader().load(spec);
+        assertSame(((PowerHost) hosts.get(0)).getPowerModel(), ((PowerHost) hosts.get(1)).getPowerModel());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void classWithoutTypeIsRejected() {
+        Properties spec = new Properties();
+        spec.setProperty("host.classes", "a");
+        spec.setProperty("host.a.mips", "1000");
+        spec.setProperty("host.a.ram", "1024");
+        new ClusterSpecLoader().load(spec);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void classWithoutMipsIsRejected() {
+        Properties spec = new Properties();
+        spec.setProperty("host.classes", "a");
+        spec.setProperty("host.a.type", "CPU");
+        spec.setProperty("host.a.ram", "1024");
+        new ClusterSpecLoader().load(spec);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void specWithoutClassesIsRejected() {
+        new ClusterSpecLoader().load(new Properties());
+    }
+}
@@ -0,0 +1,100 @@
+package pimsim;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import org.cloudbus.cloudsim.CloudletSchedulerTimeShared;
+import org.cloudbus.cloudsim.Host;
+import org.cloudbus.cloudsim.Log;
+import org.cloudbus.cloudsim.Pe;
+import org.cloudbus.cloudsim.Vm;
+import org.cloudbus.cloudsim.VmScheduler;
+import org.cloudbus.cloudsim.lists.PeList;
+import org.cloudbus.cloudsim.provisioners.PeProvisionerSimple;
+import org.junit.Before;
+import org.junit.Test;
+
+public class PeGroupTest {
+
+    private static final int CORES = 2560;
+    private static final int MIPS_PER_CORE = 500;
+
+    @Before
+    public void setUp() {
+        Log.disable();
+    }
+
+    @Test
+    public void groupCountsAsItsCores() {
+        PeGroup group = new PeGroup(0, CORES, MIPS_PER_CORE);
+        assertEquals(CORES, group.getNumberOfCores());
+        assertEquals(MIPS_PER_CORE, group.getMips());
+
+        List<Pe> pes = new ArrayList<>();
+        pes.add(group);
+        pes.add(new Pe(1, new PeProvisionerSimple(1000)));
+        assertEquals(CORES + 1, PeList.getNumberOfPes(pes));
+        assertEquals(CORES * MIPS_PER_CORE + 1000, PeList.getTotalMips(pes));
+        assertEquals(CORES + 1, PeList.getNumberOfFreePes(pes));
+        assertEquals(0, PeList.getNumberOfBusyPes(pes));
+    }
+
+    @Test
+    public void statusAppliesToEveryCore() {
+        PeGroup group = new PeGroup(0, CORES, MIPS_PER_CORE);
+        List<PeGroup> pes = Arrays.asList(group);
+
+        PeList.setPeStatus(pes, 0, Pe.BUSY);
+        assertEquals(0, PeList.getNumberOfFreePes(pes));
+        assertEquals(CORES, PeList.getNumberOfBusyPes(pes));
+
+        PeList.setPeStatus(pes, 0, Pe.FAILED);
+        assertEquals(0, group.getNumberOfFreeCores());
+        assertEquals(0, group.getNumberOfBusyCores());
+
+        PeList.setPeStatus(pes, 0, Pe.FREE);
+        assertEquals(CORES, group.getNumberOfFreeCores());
+    }
+
+    @Test
+    public void hostCountsTheCoresOfItsGroup() {
+        Host host = HeterogeneousHostConfig.createPIMHost(0, CORES, MIPS_PER_CORE, 8192);
+        assertEquals(CORES, host.getNumberOfPes());
+        assertEquals(CORES, host.getNumberOfFreePes());
+        assertEquals(CORES * MIPS_PER_CORE, host.getTotalMips());
+    }
+
+    @Test
+    public void timeSharedSchedulerProvisionsFromThePool() {
+        Host host = HeterogeneousHostConfig.createPIMHost(0, CORES, MIPS_PER_CORE, 8192);
+        VmScheduler scheduler = host.getVmScheduler();
+        assertEquals(MIPS_PER_CORE, scheduler.getPeCapacity(), 0.0);
+        assertEquals(CORES * MIPS_PER_CORE, scheduler.getAvailableMips(), 0.0);
+
+        // a virtual PE may not be faster than one core
+        assertFalse(host.vmCreate(vm(0, MIPS_PER_CORE + 1, 1)));
+
+        Vm wide = vm(1, MIPS_PER_CORE, 1000);
+        assertTrue(host.vmCreate(wide));
+        assertEquals((CORES - 1000) * MIPS_PER_CORE, scheduler.getAvailableMips(), 0.0);
+        assertEquals(1000 * MIPS_PER_CORE, host.getTotalAllocatedMipsForVm(wide), 0.0);
+
+        // more virtual PEs than the group has cores left do not fit
+        assertFalse(host.vmCreate(vm(2, MIPS_PER_CORE, CORES - 999)));
+        Vm rest = vm(3, MIPS_PER_CORE, CORES - 1000);
+        assertTrue(host.vmCreate(rest));
+        assertEquals(0.0, scheduler.getAvailableMips(), 0.0);
+
+        host.vmDestroy(wide);
+        assertEquals(1000 * MIPS_PER_CORE, scheduler.getAvailableMips(), 0.0);
+    }
+
+    private static Vm vm(int id, double mips, int pes) {
+        return new TypedVm(id, 1, mips, pes, 64, 100, 1000, "Xen", new CloudletSchedulerTimeShared(),
+                ExecutionType.PIM);
+    }
+}
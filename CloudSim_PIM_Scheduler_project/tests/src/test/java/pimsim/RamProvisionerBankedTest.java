@@ -0,0 +1,108 @@
+package pimsim;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import org.cloudbus.cloudsim.CloudletScheduler;
+import org.cloudbus.cloudsim.CloudletSchedulerTimeShared;
+import org.cloudbus.cloudsim.Vm;
+import org.junit.Test;
+
+public class RamProvisionerBankedTest {
+
+    private static final int BANK_SIZE = 64;
+    private static final double BANK_MIPS = 150.0;
+    private static final double BANK_BANDWIDTH = 800.0;
+
+    @Test
+    public void ramIsGrantedInWholeBanks() {
+        RamProvisionerBanked provisioner = new RamProvisionerBanked(8, BANK_SIZE, BANK_MIPS, BANK_BANDWIDTH);
+        Vm vm = vm(0, 100, new CloudletSchedulerTimeShared());
+
+        assertTrue(provisioner.allocateRamForVm(vm, vm.getRam()));
+        assertEquals(2, provisioner.getBankCountForVm(vm));
+        assertEquals(2 * BANK_SIZE, provisioner.getAllocatedRamForVm(vm));
+        assertEquals(2 * BANK_SIZE, vm.getCurrentAllocatedRam());
+        assertEquals(6, provisioner.getFreeBankCount());
+        assertEquals(6 * BANK_SIZE, provisioner.getAvailableRam());
+        assertEquals(2, provisioner.getBanksForVm(vm).cardinality());
+    }
+
+    @Test
+    public void ramBeyondTheLastWholeBankIsLeftOut() {
+        RamProvisionerBanked provisioner = new RamProvisionerBanked(1000);
+        assertEquals(1000 / RamProvisionerBanked.DEFAULT_BANK_SIZE, provisioner.getBankCount());
+        assertEquals(provisioner.getBankCount() * RamProvisionerBanked.DEFAULT_BANK_SIZE,
+                provisioner.getRam());
+    }
+
+    @Test
+    public void allocationFailsWhenTheBanksRunOut() {
+        RamProvisionerBanked provisioner = new RamProvisionerBanked(4, BANK_SIZE, BANK_MIPS, BANK_BANDWIDTH);
+        Vm first = vm(0, 3 * BANK_SIZE, new CloudletSchedulerTimeShared());
+        Vm second = vm(1, 2 * BANK_SIZE, new CloudletSchedulerTimeShared());
+        Vm third = vm(2, 1, new CloudletSchedulerTimeShared());
+
+        assertTrue(provisioner.allocateRamForVm(first, first.getRam()));
+        assertFalse(provisioner.isSuitableForVm(second, second.getRam()));
+        assertFalse(provisioner.allocateRamForVm(second, second.getRam()));
+        assertEquals(0, second.getCurrentAllocatedRam());
+        assertEquals(1, provisioner.getFreeBankCount());
+
+        assertTrue(provisioner.allocateRamForVm(third, third.getRam()));
+        assertEquals(0, provisioner.getFreeBankCount());
+        // the banks a VM already holds count towards its own resize
+        assertTrue(provisioner.isSuitableForVm(first, first.getRam()));
+    }
+
+    @Test
+    public void pimSchedulerLearnsItsBanks() {
+        RamProvisionerBanked provisioner = new RamProvisionerBanked(8, BANK_SIZE, BANK_MIPS, BANK_BANDWIDTH);
+        CloudletSchedulerPIM scheduler = new CloudletSchedulerPIM(16, 100.0);
+        Vm vm = vm(0, 3 * BANK_SIZE, scheduler);
+        assertEquals(16, scheduler.getBanks());
+        assertEquals(0.0, scheduler.getBankMips(), 0.0);
+
+        assertTrue(provisioner.allocateRamForVm(vm, vm.getRam()));
+        assertEquals(3, scheduler.getBanks());
+        assertEquals(BANK_MIPS, scheduler.getBankMips(), 0.0);
+        assertEquals(3 * BANK_BANDWIDTH, scheduler.getBandwidth(), 0.0);
+
+        provisioner.deallocateRamForVm(vm);
+        assertEquals(16, scheduler.getBanks());
+        assertEquals(0.0, scheduler.getBankMips(), 0.0);
+        assertEquals(16 * 100.0, scheduler.getBandwidth(), 0.0);
+        assertEquals(8, provisioner.getFreeBankCount());
+    }
+
+    @Test
+    public void deallocatingAllVmsReleasesEveryBank() {
+        RamProvisionerBanked provisioner = new RamProvisionerBanked(8, BANK_SIZE, BANK_MIPS, BANK_BANDWIDTH);
+        CloudletSchedulerPIM scheduler = new CloudletSchedulerPIM(16, 100.0);
+        Vm pimVm = vm(0, 2 * BANK_SIZE, scheduler);
+        Vm otherVm = vm(1, 4 * BANK_SIZE, new CloudletSchedulerTimeShared());
+        assertTrue(provisioner.allocateRamForVm(pimVm, pimVm.getRam()));
+        assertTrue(provisioner.allocateRamForVm(otherVm, otherVm.getRam()));
+        assertEquals(2, provisioner.getFreeBankCount());
+
+        provisioner.deallocateRamForAllVms();
+        assertEquals(8, provisioner.getFreeBankCount());
+        assertEquals(8 * BANK_SIZE, provisioner.getAvailableRam());
+        assertEquals(0, provisioner.getBankCountForVm(pimVm));
+        assertEquals(0, otherVm.getCurrentAllocatedRam());
+        assertEquals(16, scheduler.getBanks());
+
+        // the freed banks can be granted again
+        assertTrue(provisioner.allocateRamForVm(otherVm, 8 * BANK_SIZE));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void ramBelowOneBankIsRejected() {
+        new RamProvisionerBanked(RamProvisionerBanked.DEFAULT_BANK_SIZE - 1);
+    }
+
+    private static Vm vm(int id, int ram, CloudletScheduler scheduler) {
+        return new Vm(id, 1, 1000, 1, ram, 1000, 10000, "Xen", scheduler);
+    }
+}
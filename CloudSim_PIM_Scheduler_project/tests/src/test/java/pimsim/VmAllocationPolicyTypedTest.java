@@ -0,0 +1,148 @@
+package pimsim;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import org.cloudbus.cloudsim.CloudletSchedulerTimeShared;
+import org.cloudbus.cloudsim.Host;
+import org.cloudbus.cloudsim.Log;
+import org.cloudbus.cloudsim.Pe;
+import org.cloudbus.cloudsim.Vm;
+import org.cloudbus.cloudsim.VmSchedulerTimeShared;
+import org.cloudbus.cloudsim.provisioners.BwProvisionerSimple;
+import org.cloudbus.cloudsim.provisioners.PeProvisionerSimple;
+import org.cloudbus.cloudsim.provisioners.RamProvisionerSimple;
+import org.junit.Before;
+import org.junit.Test;
+
+public class VmAllocationPolicyTypedTest {
+
+    @Before
+    public void setUp() {
+        Log.disable();
+    }
+
+    @Test
+    public void vmsStayInThePoolOfTheirType() {
+        Host cpuHost = HeterogeneousHostConfig.createCPUHost(0, 10000, 8192);
+        Host pimHost = HeterogeneousHostConfig.createPIMHost(1, 5000, 8192);
+        VmAllocationPolicyTyped policy = new VmAllocationPolicyTyped(Arrays.asList(cpuHost, pimHost));
+
+        Vm cpuVm = typedVm(0, 8000, 1024, ExecutionType.CPU);
+        Vm pimVm = typedVm(1, 4000, 1024, ExecutionType.PIM);
+        assertTrue(policy.allocateHostForVm(cpuVm));
+        assertTrue(policy.allocateHostForVm(pimVm));
+        assertSame(cpuHost, policy.getHost(cpuVm));
+        assertSame(pimHost, policy.getHost(pimVm.getId(), pimVm.getUserId()));
+
+        // only the CPU host still has 2000 MIPS free, and a PIM VM may not use it
+        assertFalse(policy.allocateHostForVm(typedVm(2, 2000, 1024, ExecutionType.PIM)));
+        assertFalse(policy.allocateHostForVm(typedVm(3, 2000, 1024, ExecutionType.PIM), cpuHost));
+        assertTrue(policy.allocateHostForVm(typedVm(4, 2000, 1024, ExecutionType.CPU)));
+    }
+
+    @Test
+    public void vmIsAllocatedOnce() {
+        VmAllocationPolicyTyped policy = new VmAllocationPolicyTyped(
+                Arrays.asList(HeterogeneousHostConfig.createCPUHost(0, 10000, 8192)));
+        Vm vm = typedVm(0, 1000, 512, ExecutionType.CPU);
+        assertTrue(policy.allocateHostForVm(vm));
+        assertFalse(policy.allocateHostForVm(vm));
+    }
+
+    @Test
+    public void deallocationMakesRoomAgain() {
+        Host host = HeterogeneousHostConfig.createCPUHost(0, 10000, 4096);
+        VmAllocationPolicyTyped policy = new VmAllocationPolicyTyped(Arrays.asList(host));
+
+        Vm big = typedVm(0, 9000, 2048, ExecutionType.CPU);
+        Vm next = typedVm(1, 9000, 2048, ExecutionType.CPU);
+        assertTrue(policy.allocateHostForVm(big));
+        assertFalse(policy.allocateHostForVm(next));
+
+        policy.deallocateHostForVm(big);
+        assertNull(policy.getHost(big));
+        assertTrue(policy.allocateHostForVm(next));
+        assertSame(host, policy.getHost(next));
+    }
+
+    /**
+     * Places random VMs on random hosts and checks every choice against a scan of all hosts for
+     * the one with the most free MIPS, then the most free RAM, then the lowest id.
+     */
+    @Test
+    public void matchesAScanOfAllHosts() {
+        Random rand = new Random(1);
+        int placed = 0;
+        for (int trial = 0; trial < 200; trial++) {
+            List<Host> hosts = new ArrayList<>();
+            int hostCount = 1 + rand.nextInt(40);
+            for (int i = 0; i < hostCount; i++) {
+                hosts.add(randomCpuHost(i, rand));
+            }
+            VmAllocationPolicyTyped policy = new VmAllocationPolicyTyped(hosts);
+            List<Vm> vms = new ArrayList<>();
+
+            for (int v = 0; v < 60; v++) {
+                if (!vms.isEmpty() && rand.nextInt(5) == 0) {
+                    policy.deallocateHostForVm(vms.remove(rand.nextInt(vms.size())));
+                }
+                Vm vm = new Vm(v, 1, 500 + rand.nextInt(6) * 250, 1, 256 * (1 + rand.nextInt(12)),
+                        500 * (1 + rand.nextInt(6)), 1000, "Xen", new CloudletSchedulerTimeShared());
+                Host expected = bestHost(hosts, vm);
+                assertEquals(expected != null, policy.allocateHostForVm(vm));
+                assertSame(expected, policy.getHost(vm));
+                if (expected != null) {
+                    vms.add(vm);
+                    placed++;
+                }
+            }
+        }
+        assertTrue(placed > 0);
+    }
+
+    private static Host bestHost(List<Host> hosts, Vm vm) {
+        Host best = null;
+        for (Host host : hosts) {
+            double freeMips = host.getVmScheduler().getAvailableMips();
+            int freeRam = host.getRamProvisioner().getAvailableRam();
+            if (freeMips < vm.getCurrentRequestedTotalMips() || freeRam < vm.getCurrentRequestedRam()
+                    || host.getBwProvisioner().getAvailableBw() < vm.getCurrentRequestedBw()
+                    || !host.isSuitableForVm(vm)) {
+                continue;
+            }
+            if (best == null) {
+                best = host;
+                continue;
+            }
+            double bestMips = best.getVmScheduler().getAvailableMips();
+            int bestRam = best.getRamProvisioner().getAvailableRam();
+            if (freeMips > bestMips || (freeMips == bestMips && freeRam > bestRam)) {
+                best = host;
+            }
+        }
+        return best;
+    }
+
+    private static Host randomCpuHost(int id, Random rand) {
+        List<Pe> pes = new ArrayList<>();
+        int peCount = 1 + rand.nextInt(3);
+        for (int p = 0; p < peCount; p++) {
+            pes.add(new Pe(p, new PeProvisionerSimple(1000 + rand.nextInt(4) * 1000)));
+        }
+        return new CpuHost(id, new RamProvisionerSimple(1024 * (1 + rand.nextInt(8))),
+                new BwProvisionerSimple(1000 * (1 + rand.nextInt(5))), 100000, pes,
+                new VmSchedulerTimeShared(pes), null);
+    }
+
+    private static Vm typedVm(int id, double mips, int ram, ExecutionType type) {
+        return new TypedVm(id, 1, mips, 1, ram, 1000, 10000, "Xen", new CloudletSchedulerTimeShared(), type);
+    }
+}
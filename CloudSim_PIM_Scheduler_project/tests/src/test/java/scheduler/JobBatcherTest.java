@@ -0,0 +1,86 @@
+package scheduler;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.util.List;
+import org.cloudbus.cloudsim.Cloudlet;
+import org.cloudbus.cloudsim.UtilizationModelFull;
+import org.junit.Test;
+import pimsim.PimCloudlet;
+
+public class JobBatcherTest {
+
+    @Test
+    public void smallJobsAreThoseUpToTheLimit() {
+        JobBatcher batcher = new JobBatcher(1000, 5000, 1.0);
+        assertTrue(batcher.isSmall(1000));
+        assertFalse(batcher.isSmall(1001));
+    }
+
+    @Test
+    public void batchIsFullAtItsLengthLimit() {
+        JobBatcher batcher = new JobBatcher(1000, 2500, 1.0);
+        assertTrue(batcher.isEmpty());
+
+        batcher.add(job(0, 1000, 100, 2.0), 100);
+        batcher.add(job(1, 1000, 100, 2.0), 100);
+        assertFalse(batcher.isFull());
+        assertTrue(batcher.fits(500));
+        assertFalse(batcher.fits(501));
+
+        batcher.add(job(2, 500, 100, 2.0), 100);
+        assertTrue(batcher.isFull());
+        assertEquals(3, batcher.size());
+    }
+
+    @Test
+    public void batchedCloudletCombinesItsJobs() {
+        JobBatcher batcher = new JobBatcher(1000, 5000, 1.0);
+        batcher.add(job(0, 400, 256, 10.0), 256);
+        batcher.add(job(1, 600, 1024, 1.0), 1024);
+
+        PimCloudlet batch = batcher.toCloudlet(99);
+        assertEquals(99, batch.getCloudletId());
+        assertEquals(1000, batch.getCloudletLength());
+        assertEquals(1024, batch.getRam());
+        assertEquals(256 * 10.0 + 1024 * 1.0, batch.getMemoryTraffic(), 1e-9);
+        assertEquals(600, batch.getCloudletFileSize());
+        assertEquals(600, batch.getCloudletOutputSize());
+    }
+
+    @Test
+    public void drainStartsANewBatch() {
+        JobBatcher batcher = new JobBatcher(1000, 5000, 1.0);
+        Cloudlet first = job(0, 800, 256, 1.0);
+        Cloudlet second = job(1, 900, 256, 1.0);
+        batcher.add(first, 256);
+        batcher.add(second, 256);
+        int batchNumber = batcher.getBatchNumber();
+
+        List<Cloudlet> drained = batcher.drain();
+        assertEquals(2, drained.size());
+        assertSame(first, drained.get(0));
+        assertSame(second, drained.get(1));
+        assertTrue(batcher.isEmpty());
+        assertEquals(batchNumber + 1, batcher.getBatchNumber());
+        assertTrue(batcher.fits(5000));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void batchMustHoldASmallJob() {
+        new JobBatcher(1000, 999, 1.0);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void maxWaitMustNotBeNegative() {
+        new JobBatcher(1000, 5000, -1.0);
+    }
+
+    private static Cloudlet job(int id, long length, int ram, double passes) {
+        UtilizationModelFull utilization = new UtilizationModelFull();
+        return new PimCloudlet(id, length, 1, 300, 300, utilization, utilization, utilization, ram, passes);
+    }
+}
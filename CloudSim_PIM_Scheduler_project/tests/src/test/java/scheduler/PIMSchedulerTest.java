@@ -0,0 +1,90 @@
+package scheduler;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import org.cloudbus.cloudsim.CloudletSchedulerTimeShared;
+import org.cloudbus.cloudsim.Log;
+import org.cloudbus.cloudsim.Vm;
+import org.junit.Before;
+import org.junit.Test;
+import pimsim.ExecutionType;
+
+public class PIMSchedulerTest {
+
+    private static final int[] RAM = {2048, 2048, 256, 4096, 512};
+    private static final long[] LENGTH = {100000, 400000, 100000, 120000, 2000000};
+    private static final double[] DEADLINE = {100, 100, 100, 10, 100};
+
+    @Before
+    public void setUp() {
+        Log.disable();
+    }
+
+    @Test
+    public void batchAndSingleClassificationAgree() {
+        assertBatchMatchesSingle(null);
+    }
+
+    @Test
+    public void batchClassificationUsesProfiles() {
+        ProfileCache cache = new ProfileCache(16, 50000, 512);
+        // the first job's shape runs faster on the CPU despite its high ratio, the fourth's on
+        // PIM despite its short deadline
+        cache.put(cache.signature(RAM[0], LENGTH[0]), new JobProfile(0.002, 0.001));
+        cache.put(cache.signature(RAM[3], LENGTH[3]), new JobProfile(0.0005, 0.001));
+
+        byte[] decisions = assertBatchMatchesSingle(cache);
+        assertEquals(ExecutionType.CPU_CODE, decisions[0]);
+        assertEquals(ExecutionType.PIM_CODE, decisions[1]);
+        assertEquals(ExecutionType.PIM_CODE, decisions[3]);
+    }
+
+    @Test
+    public void atRiskFlagLastsUntilTheCloudletLeaves() {
+        PIMScheduler scheduler = new PIMScheduler();
+        scheduler.registerVm(vm(0), ExecutionType.PIM, null);
+        scheduler.registerVm(vm(1), ExecutionType.CPU, null);
+
+        // 100 s of work on either VM cannot meet a 10 s deadline
+        Vm late = scheduler.selectVM(7, ExecutionType.PIM, 100000, 0.0, 10.0);
+        assertTrue(scheduler.isDeadlineAtRisk(7));
+        Vm onTime = scheduler.selectVM(8, ExecutionType.PIM, 1000, 0.0, 1000.0);
+        assertFalse(scheduler.isDeadlineAtRisk(8));
+        assertEquals(1, scheduler.getDeadlineAtRiskTotal());
+
+        scheduler.cloudletDropped(7, late.getId(), 100000);
+        scheduler.cloudletDropped(8, onTime.getId(), 1000);
+        assertFalse(scheduler.isDeadlineAtRisk(7));
+        assertEquals(1, scheduler.getDeadlineAtRiskTotal());
+    }
+
+    private static Vm vm(int id) {
+        return new Vm(id, 1, 1000, 1, 512, 1000, 10000, "Xen", new CloudletSchedulerTimeShared());
+    }
+
+    private static byte[] assertBatchMatchesSingle(ProfileCache cache) {
+        int n = RAM.length;
+        PIMScheduler single = new PIMScheduler();
+        PIMScheduler batch = new PIMScheduler();
+        single.setProfileCache(cache);
+        batch.setProfileCache(cache);
+
+        int[] ids = new int[n];
+        for (int i = 0; i < n; i++) {
+            ids[i] = i;
+        }
+        byte[] decisions = new byte[n];
+        double[] predictions = new double[n];
+        batch.classifyJobs(ids, RAM, LENGTH, DEADLINE, decisions, predictions);
+
+        for (int i = 0; i < n; i++) {
+            ExecutionType decision = single.classifyJob(i, RAM[i], LENGTH[i], DEADLINE[i]);
+            assertEquals("job " + i, decision.code(), decisions[i]);
+            assertEquals("job " + i, single.getPredictedTime(i), predictions[i], 1e-12);
+            assertEquals("job " + i, predictions[i], batch.getPredictedTime(i), 0.0);
+        }
+        return decisions;
+    }
+}
@@ -0,0 +1,69 @@
+package scheduler;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+import org.junit.Test;
+
+public class PredictionStoreTest {
+
+    @Test
+    public void putGetAndRemove() {
+        PredictionStore store = new PredictionStore();
+        store.put(7, 1.5);
+        store.put(-3, 2.5);
+        store.put(7, 3.5);
+
+        assertEquals(2, store.size());
+        assertEquals(3.5, store.get(7, -1.0), 0.0);
+        assertEquals(2.5, store.get(-3, -1.0), 0.0);
+        assertEquals(-1.0, store.get(8, -1.0), 0.0);
+
+        assertTrue(store.remove(7));
+        assertFalse(store.remove(7));
+        assertEquals(-1.0, store.get(7, -1.0), 0.0);
+        assertEquals(1, store.size());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void reservedIdIsRejected() {
+        new PredictionStore().put(Integer.MIN_VALUE, 1.0);
+    }
+
+    @Test
+    public void reservedIdIsNeverFound() {
+        PredictionStore store = new PredictionStore();
+        assertEquals(-1.0, store.get(Integer.MIN_VALUE, -1.0), 0.0);
+        assertFalse(store.remove(Integer.MIN_VALUE));
+    }
+
+    @Test
+    public void matchesAHashMapThroughGrowthAndShrinking() {
+        Random rand = new Random(11);
+        PredictionStore store = new PredictionStore();
+        Map<Integer, Double> expected = new HashMap<>();
+
+        for (int round = 0; round < 4; round++) {
+            // fill far past the initial capacity, then drain most of it again
+            for (int i = 0; i < 20000; i++) {
+                int id = rand.nextInt(5000);
+                double time = rand.nextDouble();
+                store.put(id, time);
+                expected.put(id, time);
+            }
+            for (int i = 0; i < 30000; i++) {
+                int id = rand.nextInt(5000);
+                assertEquals(expected.remove(id) != null, store.remove(id));
+            }
+            assertEquals(expected.size(), store.size());
+            for (int id = 0; id < 5000; id++) {
+                Double time = expected.get(id);
+                assertEquals(time != null ? time : -1.0, store.get(id, -1.0), 0.0);
+            }
+        }
+    }
+}
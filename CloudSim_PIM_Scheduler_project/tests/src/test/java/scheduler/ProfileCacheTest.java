@@ -0,0 +1,54 @@
+package scheduler;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+
+import org.junit.Test;
+
+public class ProfileCacheTest {
+
+    @Test
+    public void jobsOfOneShapeShareAProfile() {
+        ProfileCache cache = new ProfileCache(4, 1000, 256);
+        JobProfile profile = new JobProfile(0.001, 0.002);
+        cache.put(cache.signature(300, 1500), profile);
+
+        assertSame(profile, cache.get(256, 1000));
+        assertSame(profile, cache.get(511, 1999));
+        assertNull(cache.get(512, 1500));
+        assertNull(cache.get(300, 2000));
+    }
+
+    @Test
+    public void signatureKeepsLengthAndRamApart() {
+        ProfileCache cache = new ProfileCache(4, 1, 1);
+        assertNotEquals(cache.signature(1, 0), cache.signature(0, 1));
+        assertEquals(cache.signature(5, 7), cache.signature(5, 7));
+    }
+
+    @Test
+    public void leastRecentlyUsedProfileIsEvicted() {
+        ProfileCache cache = new ProfileCache(2, 1000, 256);
+        JobProfile a = new JobProfile(1, 1);
+        JobProfile b = new JobProfile(2, 2);
+        JobProfile c = new JobProfile(3, 3);
+        cache.put(cache.signature(0, 0), a);
+        cache.put(cache.signature(0, 1000), b);
+
+        // touching a leaves b as the eldest
+        assertSame(a, cache.get(0, 0));
+        cache.put(cache.signature(0, 2000), c);
+
+        assertEquals(2, cache.size());
+        assertSame(a, cache.get(0, 0));
+        assertNull(cache.get(0, 1000));
+        assertSame(c, cache.get(0, 2000));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void capacityMustBePositive() {
+        new ProfileCache(0);
+    }
+}
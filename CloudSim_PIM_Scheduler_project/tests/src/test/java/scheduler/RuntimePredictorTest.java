@@ -0,0 +1,146 @@
+package scheduler;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.util.Random;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import pimsim.ExecutionType;
+
+public class RuntimePredictorTest {
+
+    private static final String HEADER =
+            "CloudletID,VMID,Type,PredictedTime,ActualTime,Error,Threshold,Length,Ram,Mips";
+
+    // time = c0 + c1 * length / mips + c2 * ram
+    private static final double[] PIM = {0.5, 1.2, 0.001};
+    private static final double[] CPU = {0.1, 0.9, 0.0002};
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void fitRecoversKnownCoefficients() throws IOException {
+        RuntimePredictor predictor = RuntimePredictor.train(syntheticCsv(200, false));
+
+        assertEquals(200, predictor.getSampleCount(ExecutionType.PIM));
+        assertEquals(200, predictor.getSampleCount(ExecutionType.CPU));
+        Random rand = new Random(2);
+        for (int i = 0; i < 50; i++) {
+            long length = 10000 + rand.nextInt(400000);
+            int ram = 128 + rand.nextInt(4096);
+            double mips = 1000 + rand.nextInt(20000);
+            assertEquals(time(PIM, length, ram, mips), predictor.predict(ExecutionType.PIM, length, ram, mips), 1e-6);
+            assertEquals(time(CPU, length, ram, mips), predictor.predict(ExecutionType.CPU, length, ram, mips), 1e-6);
+        }
+    }
+
+    @Test
+    public void ridgeKeepsAConstantFeatureSolvable() throws IOException {
+        // every row has the same RAM, so the RAM column is a multiple of the intercept column
+        RuntimePredictor predictor = RuntimePredictor.train(syntheticCsv(50, true));
+
+        assertTrue(predictor.hasModel(ExecutionType.PIM));
+        double predicted = predictor.predict(ExecutionType.PIM, 200000, 1024, 5000);
+        assertFalse(Double.isNaN(predicted));
+        assertEquals(time(PIM, 200000, 1024, 5000), predicted, 1e-6);
+    }
+
+    @Test
+    public void failedRowsAndSparseTypesAreSkipped() throws IOException {
+        File csv = folder.newFile("sparse.csv");
+        try (PrintWriter out = new PrintWriter(csv)) {
+            out.println(HEADER);
+            out.println("0,0,PIM,1.0,-1.0,0,0.004,1000,256,1000");
+            out.println("1,0,null,1.0,2.0,0,0.004,1000,256,1000");
+            for (int i = 0; i < 5; i++) {
+                long length = 1000 * (i + 1);
+                int ram = 256 * (i % 3 + 1);
+                out.println(row(i + 2, "PIM", time(PIM, length, ram, 1000), length, ram, 1000));
+            }
+            out.println(row(10, "CPU", 1.0, 1000, 256, 1000));
+        }
+        RuntimePredictor predictor = RuntimePredictor.train(csv.getPath());
+
+        assertEquals(5, predictor.getSampleCount(ExecutionType.PIM));
+        assertFalse(predictor.hasModel(ExecutionType.CPU));
+        assertEquals(-1.0, predictor.predict(ExecutionType.CPU, 1000, 256, 1000), 0.0);
+        // a non-positive mips falls back to the mean of the training rows
+        assertEquals(time(PIM, 3000, 512, 1000), predictor.predict(ExecutionType.PIM, 3000, 512, 0), 1e-6);
+    }
+
+    @Test
+    public void saveAndLoadRoundTrip() throws IOException {
+        RuntimePredictor trained = RuntimePredictor.train(syntheticCsv(100, false));
+        String model = new File(folder.getRoot(), "model.bin").getPath();
+        trained.save(model);
+        RuntimePredictor loaded = RuntimePredictor.load(model);
+
+        for (ExecutionType type : ExecutionType.values()) {
+            assertEquals(trained.hasModel(type), loaded.hasModel(type));
+            assertEquals(trained.getSampleCount(type), loaded.getSampleCount(type));
+            assertEquals(trained.predict(type, 123456, 789, 4000), loaded.predict(type, 123456, 789, 4000), 0.0);
+            assertEquals(trained.predict(type, 123456, 789, 0), loaded.predict(type, 123456, 789, 0), 0.0);
+        }
+    }
+
+    @Test
+    public void saveAndLoadKeepMissingModelsMissing() throws IOException {
+        File csv = folder.newFile("cpu-only.csv");
+        try (PrintWriter out = new PrintWriter(csv)) {
+            out.println(HEADER);
+            for (int i = 0; i < 4; i++) {
+                out.println(row(i, "CPU", time(CPU, 1000 * (i + 1), 256 * (i % 2 + 1), 1000),
+                        1000 * (i + 1), 256 * (i % 2 + 1), 1000));
+            }
+        }
+        String model = new File(folder.getRoot(), "cpu-only.bin").getPath();
+        RuntimePredictor.train(csv.getPath()).save(model);
+        RuntimePredictor loaded = RuntimePredictor.load(model);
+
+        assertTrue(loaded.hasModel(ExecutionType.CPU));
+        assertFalse(loaded.hasModel(ExecutionType.PIM));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void missingColumnIsRejected() throws IOException {
+        File csv = folder.newFile("bad.csv");
+        try (PrintWriter out = new PrintWriter(csv)) {
+            out.println("CloudletID,VMID,Type,ActualTime,Length,Ram");
+        }
+        RuntimePredictor.train(csv.getPath());
+    }
+
+    private String syntheticCsv(int rowsPerType, boolean constantRam) throws IOException {
+        Random rand = new Random(1);
+        File csv = folder.newFile();
+        try (PrintWriter out = new PrintWriter(csv)) {
+            out.println(HEADER);
+            int id = 0;
+            for (int i = 0; i < rowsPerType; i++) {
+                for (String type : new String[] {"PIM", "CPU"}) {
+                    long length = 10000 + rand.nextInt(400000);
+                    int ram = constantRam ? 1024 : 128 + rand.nextInt(4096);
+                    double mips = 1000 + rand.nextInt(20000);
+                    double[] c = "PIM".equals(type) ? PIM : CPU;
+                    out.println(row(id++, type, time(c, length, ram, mips), length, ram, mips));
+                }
+            }
+        }
+        return csv.getPath();
+    }
+
+    private static String row(int id, String type, double time, long length, int ram, double mips) {
+        return id + ",0," + type + ",0.0," + time + ",0.0,0.004," + length + "," + ram + "," + mips;
+    }
+
+    private static double time(double[] c, long length, int ram, double mips) {
+        return c[0] + c[1] * (length / mips) + c[2] * ram;
+    }
+}